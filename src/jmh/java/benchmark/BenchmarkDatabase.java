@@ -0,0 +1,90 @@
+package benchmark;
+
+import controller.persistence.database.management.DatabaseManager;
+import controller.persistence.database.management.TaskDao;
+import model.Task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class prepares an in-memory database for the benchmarks, so they do not touch the database of the user.
+ * @author Patrich Tivoli
+ */
+final class BenchmarkDatabase {
+
+    /**
+     * The start of the first task saved in the database.
+     */
+    static final LocalDateTime FIRST_START = LocalDateTime.of(2023, 1, 1, 8, 0);
+    /**
+     * The tasks saved in the database are spread over this number of days.
+     */
+    static final int DAYS = 365;
+
+    private static final int CHUNK_SIZE = 10000;
+    private static final String[] TASK_NAMES = {"JIRA-101", "JIRA-102", "Code review", "Meeting", "Study"};
+
+    /**
+     * Private constructor to hide the implicit one.
+     */
+    private BenchmarkDatabase() { }
+
+    /**
+     * This method opens a new empty in-memory database, the database is deleted when it is closed.
+     * @param name the name of the database
+     */
+    static void open(String name) {
+        DatabaseManager.closeConnection();
+        System.setProperty(DatabaseManager.DATABASE_URL_PROPERTY, "jdbc:h2:mem:" + name);
+        try {
+            DatabaseManager.initDatabase();
+        } catch (java.sql.SQLException e) {
+            throw new IllegalStateException("The benchmark database cannot be opened", e);
+        }
+    }
+
+    /**
+     * This method saves some tasks in the database, the tasks are spread evenly over a year.
+     * @param rows the number of tasks
+     */
+    static void fill(int rows) {
+        long stepSeconds = Math.max(1, DAYS * 24L * 3600 / Math.max(1, rows));
+        List<Task> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 0; i < rows; i++) {
+            chunk.add(newTask(i, FIRST_START.plusSeconds(i * stepSeconds)));
+            if (chunk.size() == CHUNK_SIZE) {
+                TaskDao.saveTasks(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            TaskDao.saveTasks(chunk);
+        }
+    }
+
+    /**
+     * This method makes a task that lasts between 1 and 60 minutes.
+     * @param index the index of the task, used to choose its name and its duration
+     * @param start the start of the task
+     * @return the task
+     */
+    static Task newTask(int index, LocalDateTime start) {
+        Task task = new Task(TASK_NAMES[index % TASK_NAMES.length]);
+        long durationMillis = (index % 60 + 1) * 60000L + index % 1000;
+        task.setStartTime(start);
+        task.setEndTime(start.plusNanos(durationMillis * 1000000L));
+        task.setDuration(durationMillis);
+        return task;
+    }
+
+    /**
+     * This method closes the database and deletes it.
+     */
+    static void close() {
+        DatabaseManager.closeConnection();
+        System.clearProperty(DatabaseManager.DATABASE_URL_PROPERTY);
+    }
+
+}
@@ -0,0 +1,93 @@
+package benchmark;
+
+import controller.persistence.BinaryReportReader;
+import controller.persistence.BinaryReportWriter;
+import model.TimeUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the reading of a binary report with a given number of tasks: a scan of all the records
+ * and the lookup of a single day. The report is written in a temporary file, the database is not used.
+ * @author Patrich Tivoli
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BinaryReportBenchmark {
+
+    private static final String[] TASK_NAMES = {"JIRA-101", "JIRA-102", "Code review", "Meeting", "Study"};
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private Path file;
+    private BinaryReportReader reader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("benchmark", ".bin");
+        long firstStart = TimeUtils.toEpochMillis(BenchmarkDatabase.FIRST_START);
+        long step = TimeUnit.DAYS.toMillis(BenchmarkDatabase.DAYS) / rows;
+        try (BinaryReportWriter writer = new BinaryReportWriter(file)) {
+            for (int i = 0; i < rows; i++) {
+                long start = firstStart + i * step;
+                writer.write(start, start + step, step, TASK_NAMES[i % TASK_NAMES.length]);
+            }
+        }
+        reader = new BinaryReportReader(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        reader.close();
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * This benchmark computes the total duration of all the records.
+     * @return the total duration
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long scan() {
+        long total = 0;
+        for (long record = 0; record < reader.size(); record++) {
+            total += reader.getDuration(record);
+        }
+        return total;
+    }
+
+    /**
+     * This benchmark computes the total duration of the records of a day in the middle of the report.
+     * @return the total duration
+     */
+    @Benchmark
+    public long dayLookup() {
+        LocalDateTime day = BenchmarkDatabase.FIRST_START.plusDays(BenchmarkDatabase.DAYS / 2);
+        long[] total = new long[1];
+        reader.forEachStartingIn(day, day.plusDays(1), record -> total[0] += reader.getDuration(record));
+        return total[0];
+    }
+
+}
@@ -0,0 +1,68 @@
+package benchmark;
+
+import model.FancyFormatter;
+import model.Task;
+import model.TimeUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures how the dates, the times and the tasks are written as text: every second for the clock
+ * and once for every row of the reports and of the journal.
+ * @author Patrich Tivoli
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FormattingBenchmark {
+
+    private LocalDateTime dateTime;
+    private Task task;
+    private FancyFormatter formatter;
+    private StringBuilder builder;
+
+    @Setup
+    public void setUp() {
+        dateTime = LocalDateTime.of(2023, 3, 14, 15, 9, 26);
+        task = BenchmarkDatabase.newTask(42, dateTime);
+        formatter = new FancyFormatter();
+        builder = new StringBuilder(128);
+    }
+
+    @Benchmark
+    public String getFancyDateTime() {
+        return TimeUtils.getFancyDateTime(dateTime);
+    }
+
+    @Benchmark
+    public StringBuilder appendDateTime() {
+        builder.setLength(0);
+        return formatter.appendDateTime(builder, dateTime);
+    }
+
+    @Benchmark
+    public String taskToString() {
+        return task.toString();
+    }
+
+    @Benchmark
+    public StringBuilder taskAppendTo() {
+        builder.setLength(0);
+        return task.appendTo(builder, formatter);
+    }
+
+}
@@ -0,0 +1,61 @@
+package benchmark;
+
+import controller.ReportGenerator;
+import controller.ReportSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the generation of the report with all the tasks of an in-memory database, with
+ * different numbers of tasks and with the months generated one at a time or in parallel.<br>
+ * The report is written in the file export.dat of the working directory.
+ * @author Patrich Tivoli
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportGeneratorBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private ReportGenerator reportGenerator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDatabase.open("report");
+        BenchmarkDatabase.fill(rows);
+        reportGenerator = new ReportGenerator(null, null, parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.close();
+    }
+
+    @Benchmark
+    public ReportSummary generateTextReport() throws IOException {
+        return reportGenerator.generateTextReport();
+    }
+
+}
@@ -0,0 +1,73 @@
+package benchmark;
+
+import controller.persistence.database.management.TaskDao;
+import model.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the saving and the reading of the tasks on an in-memory database that already
+ * contains a given number of tasks.
+ * @author Patrich Tivoli
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskDaoBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private int savedTasks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDatabase.open("taskDao");
+        BenchmarkDatabase.fill(rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.close();
+    }
+
+    /**
+     * This benchmark saves a single task, like the program does when a task is stopped.
+     */
+    @Benchmark
+    public void saveTask() {
+        Task task = BenchmarkDatabase.newTask(savedTasks, LocalDateTime.of(2024, 6, 1, 0, 0).plusSeconds(savedTasks));
+        savedTasks++;
+        TaskDao.saveTask(task);
+    }
+
+    /**
+     * This benchmark reads all the tasks of the database.
+     * @return the tasks
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Task> getTaskFromRange() {
+        return TaskDao.getTaskFromRange(BenchmarkDatabase.FIRST_START,
+                BenchmarkDatabase.FIRST_START.plusDays(BenchmarkDatabase.DAYS));
+    }
+
+}
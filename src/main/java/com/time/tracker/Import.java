@@ -0,0 +1,117 @@
+package com.time.tracker;
+
+import controller.persistence.TaskImporter;
+import controller.persistence.database.management.DailyRollupDao;
+import controller.persistence.database.management.DatabaseManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class imports tasks in the database from text files, without starting the UI.<br>
+ * It reads CSV files and files in the format of report.dat and export.dat, so it can be used to move the
+ * tasks from other programs and to make the database again from the journal.
+ * @author Patrich Tivoli
+ * @see TaskImporter
+ */
+public class Import {
+
+    /**
+     * The argument used to choose the number of threads that parse the lines.
+     */
+    private static final String THREADS = "--threads";
+    private static final String USAGE = "Usage: Import [" + THREADS + " n] file...";
+
+    /**
+     * Private constructor to hide the implicit one.
+     */
+    private Import() { }
+
+    /**
+     * This is the method that imports the files given as arguments, one after the other:<br>
+     * <code>Import [--threads n] file...</code><br>
+     * When all the files are imported, the daily totals are rebuilt and the number of tasks imported per second
+     * is printed.
+     * @param args the number of threads and the files
+     * @see TaskImporter
+     * @see DailyRollupDao#rebuild()
+     */
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (THREADS.equals(args[i])) {
+                threads = parseThreads(i + 1 < args.length ? args[++i] : null);
+            } else {
+                files.add(Paths.get(args[i]));
+            }
+        }
+        if (files.isEmpty()) {
+            exitWithUsage("No file to import");
+        }
+        TaskImporter importer = new TaskImporter(threads);
+        try {
+            long start = System.nanoTime();
+            for (Path file : files) {
+                importer.importFile(file);
+                printProgress("After " + file, importer, start);
+            }
+            int rows = DailyRollupDao.rebuild();
+            System.out.println("Daily totals rebuilt: " + rows + " rows"); //NOSONAR
+            printProgress("Total", importer, start);
+        } catch (IOException e) {
+            System.err.println("The file could not be read: " + e.getMessage()); //NOSONAR
+            System.exit(1);
+        } finally {
+            importer.close();
+            DatabaseManager.closeConnection();
+        }
+    }
+
+    /**
+     * This method reads the number of threads given after {@value #THREADS}, if it is not a positive number
+     * the usage is printed and the program ends.
+     * @param threads the argument, null if it is missing
+     * @return the number of threads
+     */
+    private static int parseThreads(String threads) {
+        int count;
+        try {
+            count = threads == null ? 0 : Integer.parseInt(threads);
+        } catch (NumberFormatException e) {
+            count = 0;
+        }
+        if (count <= 0) {
+            exitWithUsage(THREADS + " must be followed by a positive number of threads");
+        }
+        return count;
+    }
+
+    /**
+     * This method prints an error and the usage, then it ends the program.
+     * @param error the error
+     */
+    private static void exitWithUsage(String error) {
+        System.err.println(error); //NOSONAR
+        System.err.println(USAGE); //NOSONAR
+        System.exit(1);
+    }
+
+    /**
+     * This method prints how many tasks are imported and how many per second.
+     * @param label what the numbers are about
+     * @param importer the importer
+     * @param start when the import started, from {@link System#nanoTime() nanoTime}
+     */
+    private static void printProgress(String label, TaskImporter importer, long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format(Locale.ROOT, "%s: %d lines read, %d tasks imported, %d lines skipped in %.1f s (%.0f tasks/s)", //NOSONAR
+                label, importer.getReadLines(), importer.getImportedTasks(), importer.getRejectedLines(),
+                seconds, importer.getImportedTasks() / Math.max(seconds, 1e-9)));
+    }
+
+}
@@ -1,10 +1,26 @@
 package com.time.tracker;
 
+import com.github.lgooddatepicker.components.DateTimePicker;
 import controller.Controller;
+import controller.ReportFormat;
+import controller.StartupTimer;
+import controller.persistence.database.management.DailyRollupDao;
+import controller.persistence.database.management.DatabaseManager;
+import controller.persistence.database.management.TaskDao;
+import exceptions.TimeTrackerException;
+import model.Task;
+import view.MonitoredEventQueue;
 import view.View;
 
+import javax.swing.*;
+import java.awt.*;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * This is the Main class in which everything starts.
@@ -12,22 +28,138 @@ import java.util.ResourceBundle;
  */
 public class Main {
 
+    /**
+     * The argument used to compute again the daily totals without starting the UI.
+     */
+    private static final String REBUILD_ROLLUP = "--rebuild-rollup";
+    /**
+     * The argument used to run the code of the start once and end, so the classes loaded can be archived
+     * by the JVM.
+     */
+    private static final String CDS_TRAINING = "--cds-training";
+    /**
+     * The database used while training, so the data of the user is never touched.
+     */
+    private static final String TRAINING_DATABASE_URL = "jdbc:h2:mem:training";
+
+    private static final Logger LOGGER = Logger.getLogger(Main.class.getName());
+
     /**
      * This is the main method in which everything starts. <br>
      * The Locale taken is the default one, so that the program adapts its language
      * to the os' language. <br>
-     * After initializing the ResourceBundle the View and the Controller are initialized and started.
+     * The database is opened in background while the UI is made, so the frame is shown without waiting for it.
+     * After initializing the ResourceBundle the View and the Controller are initialized and started by the event
+     * dispatch thread; before that, the queue of the events of the UI is replaced by a
+     * {@link MonitoredEventQueue monitored one}, so the freezes of the UI are logged. The time taken by every
+     * phase of the start is logged by the {@link StartupTimer StartupTimer}.<br>
+     * If the first argument is <code>--rebuild-rollup</code>, the daily totals are computed again from
+     * the saved tasks and the program ends without starting the UI.<br>
+     * If the first argument is <code>--cds-training</code>, the code of the start is run once on an in-memory
+     * database and the program ends, in this way the JVM can archive the classes loaded.
      * @param args Arguments that may come from a terminal
      * @see Locale
      * @see ResourceBundle
      * @see View
      * @see Controller
+     * @see MonitoredEventQueue
+     * @see StartupTimer
      */
     public static void main(String[] args) {
+        StartupTimer.start();
+        if (args.length > 0 && REBUILD_ROLLUP.equals(args[0])) {
+            rebuildRollup();
+            return;
+        }
+        if (args.length > 0 && CDS_TRAINING.equals(args[0])) {
+            trainClassDataSharing();
+            return;
+        }
+        openDatabase();
         Locale locale = Locale.getDefault();
         ResourceBundle resourceBundle = ResourceBundle.getBundle("bundle", locale);
-        View view = new View(resourceBundle);
-        new Controller(resourceBundle, view);
+        MonitoredEventQueue.install();
+        SwingUtilities.invokeLater(() -> {
+            View view = new View(resourceBundle);
+            StartupTimer.phase("frameShown");
+            new Controller(resourceBundle, view);
+            StartupTimer.phase("interactive");
+        });
+    }
+
+    /**
+     * This method opens the database in background. If it fails, the error is logged and the database is
+     * opened again by the first query, which shows the error to the user.
+     * @see DatabaseManager#initDatabase()
+     */
+    private static void openDatabase() {
+        Thread thread = new Thread(() -> {
+            try {
+                DatabaseManager.initDatabase();
+                StartupTimer.phase("databaseOpened");
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "The database could not be opened in background", e);
+            }
+            StartupTimer.logJvmStart();
+        }, "database-init");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * This method runs the code of the start once, on an in-memory database unless another one is chosen with
+     * the system property {@link DatabaseManager#DATABASE_URL_PROPERTY timeTracker.database.url}, and ends
+     * the program. It is used to make the archive of the classes loaded by the JVM, so the next starts are faster.
+     * <br>If there is no screen, the components of the UI are made without showing the frame.
+     * @see DatabaseManager
+     * @see TaskDao
+     */
+    private static void trainClassDataSharing() {
+        if (System.getProperty(DatabaseManager.DATABASE_URL_PROPERTY) == null) {
+            System.setProperty(DatabaseManager.DATABASE_URL_PROPERTY, TRAINING_DATABASE_URL);
+        }
+        try {
+            DatabaseManager.initDatabase();
+            Task task = new Task("training");
+            task.setStartTime(LocalDateTime.now().minusMinutes(1));
+            task.setEndTime(LocalDateTime.now());
+            task.setDuration(60_000L);
+            TaskDao.saveTask(task);
+            TaskDao.getDailyTask();
+            ReportFormat.getFormats();
+            ResourceBundle resourceBundle = ResourceBundle.getBundle("bundle", Locale.getDefault());
+            SwingUtilities.invokeAndWait(() -> {
+                if (GraphicsEnvironment.isHeadless()) {
+                    new JTable(new Object[][] { { "training" } }, new Object[] { "task" });
+                    new JScrollPane(new JTextArea(resourceBundle.getString("welcome")));
+                    new JComboBox<>(new String[] { "training" });
+                    new DateTimePicker();
+                } else {
+                    new View(resourceBundle);
+                }
+            });
+            System.out.println("Training completed after " + StartupTimer.phase("training") + " ms"); //NOSONAR
+        } catch (SQLException | InvocationTargetException e) {
+            throw new TimeTrackerException("There was a problem while training", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            DatabaseManager.closeConnection();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * This method computes again the daily totals from the saved tasks and closes the database.
+     * @see DailyRollupDao#rebuild()
+     */
+    private static void rebuildRollup() {
+        try {
+            int rows = DailyRollupDao.rebuild();
+            System.out.println("Daily totals rebuilt: " + rows + " rows"); //NOSONAR
+        } finally {
+            DatabaseManager.closeConnection();
+        }
     }
 
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 /**
- * This package contains only the Main class.
+ * This package contains the entry points of the program: the Main class, which starts the UI, and the Import
+ * class, which imports tasks from text files without starting the UI.
  * @see com.time.tracker.Main
+ * @see com.time.tracker.Import
  */
 package com.time.tracker;
\ No newline at end of file
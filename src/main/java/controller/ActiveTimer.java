@@ -0,0 +1,99 @@
+package controller;
+
+import model.Stopwatch;
+import model.Task;
+import model.TimeUtils;
+
+import javax.swing.*;
+import java.time.LocalDateTime;
+
+/**
+ * This class is a task that is running: the task, the {@link Stopwatch Stopwatch} that measures it and the
+ * {@link JLabel label} that shows its time.<br>
+ * The text of the label is computed by the {@link TimerManager TimerManager} on the thread of the scheduler
+ * and it is written on the label by the event dispatch thread, the label is just a view of the stopwatch.
+ * @author Patrich Tivoli
+ */
+public class ActiveTimer {
+
+    private final Task task;
+    private final Stopwatch stopwatch;
+    private final JLabel label;
+    private volatile String text;
+    private volatile boolean stopped;
+
+    /**
+     * This constructor starts the timer of a task.
+     * @param task the task that is started
+     * @param label the label that shows the time of the task
+     */
+    public ActiveTimer(Task task, JLabel label) {
+        this.task = task;
+        this.stopwatch = new Stopwatch();
+        this.label = label;
+        this.text = TimeUtils.getFancyDuration(0);
+        label.setText(text);
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    public Stopwatch getStopwatch() {
+        return stopwatch;
+    }
+
+    /**
+     * This method computes the text of the label from the stopwatch, it is executed by the scheduler.
+     * @return true if the text is changed since the last time, false otherwise
+     * @see TimeUtils#getFancyDuration(long)
+     */
+    boolean tick() {
+        String newText = TimeUtils.getFancyDuration(stopwatch.getElapsedMillis());
+        if (newText.equals(text)) {
+            return false;
+        }
+        text = newText;
+        return true;
+    }
+
+    /**
+     * This method writes the last text computed on the label, it is executed by the event dispatch thread.
+     */
+    void repaint() {
+        if (!stopped) {
+            label.setText(text);
+        }
+    }
+
+    /**
+     * This method pauses or resumes the timer, the label is updated at once.<br>
+     * It has to be called by the event dispatch thread.
+     * @return true if the timer is paused, false if it is running again
+     */
+    public boolean togglePause() {
+        if (stopwatch.isPaused()) {
+            stopwatch.resume();
+        } else {
+            stopwatch.pause();
+        }
+        tick();
+        repaint();
+        return stopwatch.isPaused();
+    }
+
+    /**
+     * This method stops the timer: the end and the duration of the task are set and the label is not
+     * updated anymore.<br>
+     * It has to be called by the event dispatch thread.
+     * @param endTime the end of the task
+     * @return the task
+     */
+    public Task stop(LocalDateTime endTime) {
+        stopped = true;
+        task.setEndTime(endTime);
+        task.setDuration(stopwatch.getElapsedMillis());
+        return task;
+    }
+
+}
@@ -0,0 +1,48 @@
+package controller;
+
+import controller.persistence.BinaryReportWriter;
+import model.Task;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * This class is the binary format of the reports, written by a {@link BinaryReportWriter BinaryReportWriter}.<br>
+ * The file has a header and a dictionary of the task names, so it cannot be compressed or made of parts.
+ * @author Patrich Tivoli
+ * @see controller.persistence.BinaryReportReader
+ */
+public class BinaryReportFormat implements ReportFormat {
+
+    @Override
+    public String getBundleKey() {
+        return "reportFormatBinary";
+    }
+
+    @Override
+    public String getFileExtension() {
+        return ".bin";
+    }
+
+    @Override
+    public boolean isText() {
+        return false;
+    }
+
+    @Override
+    public TaskWriter open(Path path, int compressionLevel, boolean header) throws IOException {
+        BinaryReportWriter writer = new BinaryReportWriter(path);
+        return new TaskWriter() {
+            @Override
+            public void write(Task task) throws IOException {
+                writer.write(task);
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.close();
+            }
+        };
+    }
+
+}
@@ -1,37 +1,42 @@
 package controller;
 
+import model.FancyFormatter;
 import model.TimeUtils;
 
 import javax.swing.*;
 import java.time.LocalDateTime;
-import java.util.TimerTask;
 
 /**
  * This class has just one task to do, updating the clock of the program.<br>
- * It extends {@link TimerTask TimerTask} so that can be executed as a
- * {@link java.util.Timer Timer} Thread.
+ * It is executed periodically by the scheduler of the {@link Controller Controller}, the label is
+ * repainted by the event dispatch thread through a {@link LabelRepainter LabelRepainter}.
  * @author Patrich Tivoli
  */
-public class ClockManager extends TimerTask {
+public class ClockManager implements Runnable {
 
-    private JLabel clock;
+    private final LabelRepainter clock;
+    private final FancyFormatter formatter = new FancyFormatter();
+    private final StringBuilder text = new StringBuilder(19);
 
     public ClockManager(JLabel clock) {
-        this.clock = clock;
+        this.clock = new LabelRepainter(clock);
     }
 
     /**
      * Here in this method, the clock is updated with the current time and date that are taken from
      * the {@link LocalDateTime#now() now} method.<br>
      * The method {@link TimeUtils#getFancyDateTime(LocalDateTime) getFancyDateTime} is used to convert
-     * the original {@link LocalDateTime#toString() toString()} method output in a more fancy {@link String string}.
+     * the original {@link LocalDateTime#toString() toString()} method output in a more fancy {@link String string},
+     * the date is written again only when the day changes.
      * @see TimeUtils
+     * @see FancyFormatter
      * @see LocalDateTime
-     * @see JLabel
+     * @see LabelRepainter
      */
     @Override
     public void run() {
-        clock.setText(TimeUtils.getFancyDateTime(LocalDateTime.now()));
+        text.setLength(0);
+        clock.update(formatter.appendDateTime(text, LocalDateTime.now()).toString());
     }
 
 }
@@ -1,31 +1,61 @@
 package controller;
 
 import controller.persistence.PersistenceManager;
+import controller.persistence.database.management.DatabaseManager;
 import exceptions.TimeTrackerException;
+import metrics.MetricsReporter;
+import model.ReportType;
+import model.Stopwatch;
 import model.Task;
+import view.TimerPanel;
 import view.View;
 
+import javax.swing.*;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ResourceBundle;
-import java.util.Timer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The controller implements all the logic behind this TimeTracker, from the event listener
- * when a button is clicked, to the persistence of the data.
+ * when a button is clicked, to the persistence of the data.<br>
+ * More tasks can run at the same time, every one with its own timer that can be paused and stopped;
+ * all the timers are updated by the same job of the scheduler.
  * @author Patrich Tivoli
  */
 public class Controller {
 
     private View view;
-    private Task currentTask;
     private DailyManager dailyManager;
-    private Timer clock;
+    private final TimerManager timerManager = new TimerManager();
+    private final ScheduledExecutorService scheduler;
     private final ResourceBundle resourceBundle;
+    private final PersistenceManager persistenceManager;
+    private final List<ReportFormat> reportFormats = ReportFormat.getFormats();
+    private final MetricsReporter metricsReporter;
+
+    /**
+     * The maximum number of milliseconds to wait for the pending tasks to be saved when the program is closed.
+     */
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10000L;
+    /**
+     * How often the clocks are updated.
+     */
+    private static final long TICK_MILLIS = 1000L;
+    /**
+     * The name of the file of the report proposed to the user, without the extension.
+     */
+    private static final String EXPORT_FILE_NAME = "export";
+    private static final String COMPRESSED_EXTENSION = ".gz";
 
     /**
      * {@link ResourceBundle ResourceBundle} is used for the translations of the program.<br>
@@ -38,32 +68,58 @@ public class Controller {
     public Controller(ResourceBundle resourceBundle, View view){
         this.resourceBundle = resourceBundle;
         this.view = view;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.persistenceManager = new PersistenceManager(this::showSaveError);
+        this.persistenceManager.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "shutdown"));
         initView(this.view);
         startNow(this.view);
+        startTimers();
+        this.metricsReporter = MetricsReporter.schedule(scheduler);
     }
 
     /**
      * This method initialize the view:<br>
      * <ul>
-     *     <li>Timer initialization, it puts the string "00:00:00" on the timer</li>
      *     <li>Event listener for the text area for the task description</li>
      *     <li>Event listener for the start button</li>
-     *     <li>Event listener for the stop button</li>
      *     <li>Event listener for the report generation button</li>
+     *     <li>Formats of the list of tasks of the report</li>
      *     <li>Initialization of the Daily (list of tasks of today)</li>
      * </ul>
      * @param view view is needed to implement a listener
      * @see View
      */
     private void initView(View view){
-        view.resetClock();
         enableButtonWhenTextFieldNotBlank();
         ifStartButtonIsPressedThenStartTimer();
-        ifStopButtonIsPressedThenStopTimer();
         ifGenerateButtonIsPressedThenGenerateReport();
+        initReportFormats();
         initDaily();
     }
 
+    /**
+     * This method gives to the view the names of the {@link ReportFormat formats} of the list of tasks, the name
+     * is translated by the resource bundle if it contains the key of the format.
+     * @see ReportFormat#getFormats()
+     * @see View
+     */
+    private void initReportFormats() {
+        List<String> names = new ArrayList<>();
+        boolean[] text = new boolean[reportFormats.size()];
+        for (int i = 0; i < reportFormats.size(); i++) {
+            ReportFormat format = reportFormats.get(i);
+            String key = format.getBundleKey();
+            names.add(resourceBundle.containsKey(key) ? resourceBundle.getString(key) : key);
+            text[i] = format.isText();
+        }
+        view.setReportFormats(names, text);
+    }
+
     /**
      * This method add a {@link DocumentListener DocumentListener} that enables the start
      * button if there is text in the textarea, otherwise the button will be disabled.
@@ -112,44 +168,45 @@ public class Controller {
     }
 
     /**
-     * This method implements an {@link ActionListener ActionListener} to
-     * start the timer, disable the start button and to enable the stop button.
+     * This method implements an {@link ActionListener ActionListener} to start a new task:
+     * its timer is added to the view and the task description is erased, so another task can be started
+     * while this one is running.
      * @see View
      * @see ActionListener
+     * @see ActiveTimer
      */
     private void ifStartButtonIsPressedThenStartTimer() {
         view.setStartActionListener(e -> {
-            view.disableStartButton();
-            view.enableStopButton();
-            currentTask = new Task(view.getTaskDescription());
-            startClock(view);
+            String taskName = view.getTaskDescription();
+            TimerPanel timerPanel = view.addTimerPanel(taskName);
+            ActiveTimer timer = new ActiveTimer(new Task(taskName), timerPanel.getClockLabel());
+            timerPanel.setPauseActionListener(event -> timerPanel.setPaused(timer.togglePause()));
+            timerPanel.setStopActionListener(event -> stopTimer(timer, timerPanel));
+            timerManager.add(timer);
+            view.eraseTaskDescription();
         });
     }
 
     /**
-     * This method implements an {@link ActionListener ActionListener} to:<br>
+     * This method stops the timer of a task:<br>
      * <ul>
-     *     <li>Stop the clock</li>
-     *     <li>Setting the task model object to be saved</li>
+     *     <li>Stop the timer, the duration is taken from the {@link Stopwatch Stopwatch} so the pauses are not counted</li>
      *     <li>Save the task in the DB and in the file</li>
      *     <li>Add the row on the table</li>
-     *     <li>Reset the timer</li>
-     *     <li>Erase the task description</li>
-     *     <li>Disable the stop button</li>
+     *     <li>Remove the timer from the view</li>
      * </ul>
+     * The other tasks keep running.
+     * @param timer the timer of the task
+     * @param timerPanel the panel of the timer
      * @see View
+     * @see ActiveTimer#stop(LocalDateTime)
      */
-    private void ifStopButtonIsPressedThenStopTimer() {
-        view.setStopActionListener(e -> {
-            stopClock();
-            currentTask.setEndTime(LocalDateTime.now());
-            currentTask.setDelta(view.getClock());
-            saveTask(currentTask);
-            view.addRowOnTable(currentTask);
-            view.resetClock();
-            view.eraseTaskDescription();
-            view.disableStopButton();
-        });
+    private void stopTimer(ActiveTimer timer, TimerPanel timerPanel) {
+        timerManager.remove(timer);
+        Task task = timer.stop(LocalDateTime.now());
+        saveTask(task);
+        dailyManager.addTask(task);
+        view.removeTimerPanel(timerPanel);
     }
 
     /**
@@ -174,8 +231,13 @@ public class Controller {
      * and time. <br>
      * If the "to" date and time is disabled, then the query will retrieve all the tasks
      * after the "from" date and time.<br>
-     * If "from" and "to" date and time are disabled, then all the tasks will be retrieved.
+     * If "from" and "to" date and time are disabled, then all the tasks will be retrieved.<br>
+     * Depending on the kind of report chosen by the user, the file contains all the tasks or the total
+     * time spent on them grouped by task name, day, week or month. The list of tasks is written in the
+     * {@link ReportFormat format} chosen by the user and the text reports can be compressed. The user chooses
+     * where the file is saved, if the user cancels the report is not generated.
      * @see LocalDateTime
+     * @see ReportType
      * @see View
      * @see ReportGenerator
      * @see ResourceBundle
@@ -192,7 +254,23 @@ public class Controller {
                 if (!view.toReportEnabled()) {
                     toDate = null;
                 }
-                new ReportGenerator(fromDate, toDate).generateTextReport();
+                ReportType reportType = view.getReportType();
+                ReportFormat format = reportType == ReportType.TASKS
+                        ? reportFormats.get(view.getReportFormatIndex())
+                        : new TextReportFormat();
+                boolean compressed = view.compressedReportSelected() && format.isText();
+                Path path = view.chooseReportPath(EXPORT_FILE_NAME + format.getFileExtension()
+                        + (compressed ? COMPRESSED_EXTENSION : ""));
+                if (path == null) {
+                    return;
+                }
+                ReportGenerator reportGenerator = new ReportGenerator(fromDate, toDate);
+                reportGenerator.setCompressed(compressed);
+                if (reportType == ReportType.TASKS) {
+                    reportGenerator.generateTaskReport(format, path);
+                } else {
+                    reportGenerator.generateSummaryReport(reportType, path);
+                }
                 view.getInfoViewHandler().showInfo(
                         resourceBundle.getString("reportCreated"),
                         resourceBundle.getString("reportSuccessfullyCreated")
@@ -248,49 +326,68 @@ public class Controller {
 
     /**
      * This method saves a task in the file and in the database.<br>
-     * Since it can be a heavy task (and it's not related to the view), a thread is created.
+     * Since it can be a heavy task (and it's not related to the view), the task is given to the
+     * {@link PersistenceManager PersistenceManager} which saves it on its own thread.
      * @param task the task that need to be saved
+     * @see PersistenceManager
      */
     private void saveTask(Task task) {
-        Thread thread = new Thread(new PersistenceManager(task));
-        thread.start();
+        persistenceManager.save(task);
     }
 
     /**
-     * This method initialize the "now" clock which is just a simple clock that shows
-     * the output of {@link LocalDateTime#now() now}.
-     * @param view the view
-     * @see View
-     * @see Timer
-     * @see ClockManager
-     * @see java.util.TimerTask
+     * This method shows an error to the user when a task could not be saved.<br>
+     * It is called by the thread of the {@link PersistenceManager PersistenceManager}, so the message
+     * is shown on the event dispatch thread.
+     * @param exception the problem that happened while saving the task
+     * @see SwingUtilities#invokeLater(Runnable)
      */
-    private void startNow(View view) {
-        Timer now = new Timer("now");
-        now.scheduleAtFixedRate(new ClockManager(view.getNow()), 0, 1000L);
+    private void showSaveError(TimeTrackerException exception) {
+        SwingUtilities.invokeLater(() -> view.getInfoViewHandler().showError(
+                resourceBundle.getString("saveErrorTitle"),
+                resourceBundle.getString("saveErrorMessage") + "\n" + exception.getMessage()
+        ));
+    }
+
+    /**
+     * This method is executed when the program is closed: it waits until all the pending tasks
+     * are saved and then it closes the database. If the metrics are written in a file, they are written
+     * one last time.
+     * @see PersistenceManager#shutdown(long)
+     * @see DatabaseManager#closeConnection()
+     * @see MetricsReporter
+     */
+    private void shutdown() {
+        scheduler.shutdownNow();
+        persistenceManager.shutdown(SHUTDOWN_TIMEOUT_MILLIS);
+        DatabaseManager.closeConnection();
+        if (metricsReporter != null) {
+            metricsReporter.run();
+        }
     }
 
     /**
-     * This method initialize the "clock" which is the timer that counts the time of
-     * a task.
+     * This method initialize the "now" clock which is just a simple clock that shows
+     * the output of {@link LocalDateTime#now() now}.<br>
+     * The clock is updated by the same scheduler used for the timer of the tasks.
      * @param view the view
      * @see View
-     * @see Timer
+     * @see ScheduledExecutorService
      * @see ClockManager
-     * @see java.util.TimerTask
      */
-    private void startClock(View view) {
-        clock = new Timer("clock");
-        clock.scheduleAtFixedRate(new TimerManager(view.getClock(), view.getClockLabel()), 1000L, 1000L);
+    private void startNow(View view) {
+        scheduler.scheduleAtFixedRate(new ClockManager(view.getNow()), 0, TICK_MILLIS, TimeUnit.MILLISECONDS);
     }
 
     /**
-     * This method stops the timer that counts the time of a task.
-     * @see Timer
-     * @see java.util.TimerTask
+     * This method starts the job that updates the timers of all the tasks that are running.<br>
+     * The job is one for any number of tasks, a task that is started is just added to the
+     * {@link TimerManager TimerManager}.
+     * @see ScheduledExecutorService
+     * @see TimerManager
      */
-    private void stopClock() {
-        clock.cancel();
+    private void startTimers() {
+        scheduler.scheduleAtFixedRate(timerManager, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -298,7 +395,7 @@ public class Controller {
      * @see DailyManager
      */
     private void initDaily() {
-        dailyManager = new DailyManager(view);
+        dailyManager = new DailyManager(view, scheduler, resourceBundle);
         dailyManager.initDaily();
     }
 
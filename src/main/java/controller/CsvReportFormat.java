@@ -0,0 +1,67 @@
+package controller;
+
+import model.FancyFormatter;
+import model.Task;
+import model.TimeUtils;
+
+/**
+ * This class is the CSV format of the reports, with the columns START_TIME, END_TIME, TASK_NAME and DURATION.<br>
+ * The dates and times are written in ISO-8601 and the duration as a number of milliseconds, the name is quoted
+ * only if it contains a comma, a quote or a new line. The file can be read by the import of the tasks.
+ * @author Patrich Tivoli
+ * @see controller.persistence.TaskImporter
+ */
+public class CsvReportFormat extends LineReportFormat {
+
+    private static final String HEADER = "START_TIME,END_TIME,TASK_NAME,DURATION";
+
+    @Override
+    public String getBundleKey() {
+        return "reportFormatCsv";
+    }
+
+    @Override
+    public String getFileExtension() {
+        return ".csv";
+    }
+
+    @Override
+    protected boolean appendHeader(StringBuilder line) {
+        line.append(HEADER);
+        return true;
+    }
+
+    @Override
+    protected void appendTask(StringBuilder line, Task task, FancyFormatter formatter) {
+        TimeUtils.appendIsoDateTime(line, task.getStartTime()).append(',');
+        TimeUtils.appendIsoDateTime(line, task.getEndTime()).append(',');
+        appendField(line, task.getTaskName()).append(',').append(task.getDuration());
+    }
+
+    /**
+     * This method appends a field, quoted if it contains a comma, a quote or a new line.
+     * @param line the builder of the line
+     * @param field the field
+     * @return the builder
+     */
+    private static StringBuilder appendField(StringBuilder line, String field) {
+        boolean quoted = false;
+        for (int i = 0; i < field.length() && !quoted; i++) {
+            char c = field.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            return line.append(field);
+        }
+        line.append('"');
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        return line.append('"');
+    }
+
+}
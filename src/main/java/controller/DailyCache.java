@@ -0,0 +1,205 @@
+package controller;
+
+import controller.persistence.database.management.TaskDao;
+import model.Task;
+
+import java.time.LocalDate;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * This class keeps in memory the tasks executed today, so that they are read from the database only once.<br>
+ * The tasks are added to the cache as soon as they are stopped and the totals are updated at the same time.
+ * When the day changes the cache is emptied and the listeners are notified that a new day has started, whoever
+ * notices it first: a task added or read after midnight, or the job scheduled at midnight.
+ * @author Patrich Tivoli
+ */
+public class DailyCache {
+
+    private final List<Task> tasks = new ArrayList<>();
+    private final Set<LocalDateTime> startTimes = new HashSet<>();
+    private final Map<String, Long> totalsByTaskName = new LinkedHashMap<>();
+    private final List<Consumer<LocalDate>> rolloverListeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler;
+    private LocalDate day;
+    private long totalMillis;
+    private boolean loaded;
+
+    /**
+     * This constructor makes an empty cache for today, the tasks are read when the cache is loaded.
+     * @param scheduler the scheduler used to empty the cache at midnight
+     * @see DailyCache#load(Consumer)
+     */
+    public DailyCache(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+        this.day = LocalDate.now();
+        scheduleRollover();
+    }
+
+    /**
+     * This method reads the tasks executed today from the database, if they are not already read, and gives
+     * them to a consumer one at a time while they are read.<br>
+     * The cache is not locked while the database is read, so the tasks can still be added in the meantime.
+     * Every task read is checked and added to the cache under the same lock of {@link DailyCache#add(Task) add},
+     * by its start time: a task that is both added and read from the database is kept only once and it is given
+     * only to the first of the two, the consumer or the caller of add.
+     * @param consumer the consumer of the tasks read from the database
+     * @see TaskDao#streamTaskFromRange(LocalDateTime, LocalDateTime, Consumer)
+     */
+    public void load(Consumer<Task> consumer) {
+        LocalDate loadingDay;
+        synchronized (this) {
+            rollOverIfNeeded();
+            if (loaded) {
+                return;
+            }
+            loadingDay = day;
+        }
+        TaskDao.streamTaskFromRange(loadingDay.atStartOfDay(), null, task -> {
+            synchronized (this) {
+                if (day.equals(loadingDay) && startTimes.add(getKey(task))) {
+                    addToCache(task);
+                    consumer.accept(task);
+                }
+            }
+        });
+        synchronized (this) {
+            if (day.equals(loadingDay)) {
+                loaded = true;
+            }
+        }
+    }
+
+    /**
+     * This method adds a task to the cache, if it started today and it is not already in the cache.
+     * @param task the task that has been stopped
+     * @return true if the task is added, false if it started another day or it was already read from the database
+     */
+    public synchronized boolean add(Task task) {
+        rollOverIfNeeded();
+        if (!task.getStartTime().toLocalDate().equals(day) || !startTimes.add(getKey(task))) {
+            return false;
+        }
+        addToCache(task);
+        return true;
+    }
+
+    /**
+     * This method returns the tasks executed today.
+     * @return a copy of the list of the tasks executed today
+     */
+    public synchronized List<Task> getTasks() {
+        rollOverIfNeeded();
+        return new ArrayList<>(tasks);
+    }
+
+    /**
+     * This method returns the total time spent today.
+     * @return the total time in milliseconds
+     */
+    public synchronized long getTotalMillis() {
+        rollOverIfNeeded();
+        return totalMillis;
+    }
+
+    /**
+     * This method returns the total time spent today on every task name.
+     * @return a copy of the totals in milliseconds, by task name
+     */
+    public synchronized Map<String, Long> getTotalsByTaskName() {
+        rollOverIfNeeded();
+        return Collections.unmodifiableMap(new LinkedHashMap<>(totalsByTaskName));
+    }
+
+    /**
+     * This method returns the day of the cache.
+     * @return the day of the cache
+     */
+    public synchronized LocalDate getDay() {
+        return day;
+    }
+
+    /**
+     * This method adds a listener that is notified when a new day starts and the cache is emptied.<br>
+     * The listener is called by the thread that notices the new day, not by the event dispatch thread, while the
+     * cache is locked: it should just hand the work over to another thread.
+     * @param listener the listener, it receives the new day
+     */
+    public void addRolloverListener(Consumer<LocalDate> listener) {
+        rolloverListeners.add(listener);
+    }
+
+    /**
+     * This method returns the key of a task in the cache: its start time, with the precision of the database,
+     * so a task read from the database has the same key of the task that was saved.
+     * @param task the task
+     * @return the start time truncated to microseconds
+     */
+    private static LocalDateTime getKey(Task task) {
+        return task.getStartTime().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    /**
+     * This method adds a task to the list and to the totals.
+     * @param task the task
+     */
+    private void addToCache(Task task) {
+        long duration = task.getDuration();
+        tasks.add(task);
+        totalMillis += duration;
+        totalsByTaskName.merge(task.getTaskName(), duration, Long::sum);
+    }
+
+    /**
+     * This method empties the cache and notifies the listeners if the day is changed.<br>
+     * There is no need to read the database for the new day: the tasks that start today are added when they stop.
+     */
+    private synchronized void rollOverIfNeeded() {
+        LocalDate today = LocalDate.now();
+        if (today.equals(day)) {
+            return;
+        }
+        day = today;
+        clear();
+        loaded = true;
+        for (Consumer<LocalDate> listener : rolloverListeners) {
+            listener.accept(today);
+        }
+    }
+
+    /**
+     * This method removes all the tasks and the totals.
+     */
+    private void clear() {
+        tasks.clear();
+        startTimes.clear();
+        totalsByTaskName.clear();
+        totalMillis = 0;
+    }
+
+    /**
+     * This method schedules a check of the day at the next midnight, so the cache is emptied and the listeners
+     * are notified even if nothing uses the cache, then the next check is scheduled.
+     */
+    private void scheduleRollover() {
+        LocalDateTime now = LocalDateTime.now();
+        long delay = Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay()).toMillis();
+        scheduler.schedule(() -> {
+            rollOverIfNeeded();
+            scheduleRollover();
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+}
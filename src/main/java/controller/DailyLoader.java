@@ -0,0 +1,91 @@
+package controller;
+
+import model.Task;
+import view.View;
+
+import javax.swing.*;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class loads the Daily in background, so the window is usable while the database is opened and
+ * the tasks of today are read.<br>
+ * The tasks are published while they are read and they are added to the table in chunks by the event
+ * dispatch thread, with a single update of the table for every chunk. The loading indicator of the
+ * view is hidden when the last task is added, or when the tasks could not be read: in this case the error is
+ * shown to the user.
+ * @author Patrich Tivoli
+ * @see SwingWorker
+ */
+public class DailyLoader extends SwingWorker<Integer, Task> {
+
+    private static final Logger LOGGER = Logger.getLogger(DailyLoader.class.getName());
+
+    private final DailyCache dailyCache;
+    private final View view;
+    private final ResourceBundle resourceBundle;
+
+    public DailyLoader(DailyCache dailyCache, View view, ResourceBundle resourceBundle) {
+        this.dailyCache = dailyCache;
+        this.view = view;
+        this.resourceBundle = resourceBundle;
+    }
+
+    /**
+     * This method reads the tasks of today through the cache, every task is published as soon as it is read.
+     * @return the number of tasks published
+     * @see DailyCache#load(java.util.function.Consumer)
+     */
+    @Override
+    protected Integer doInBackground() {
+        int[] count = new int[1];
+        dailyCache.load(task -> {
+            publish(task);
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    /**
+     * This method adds a chunk of tasks to the table, it is called by the event dispatch thread.
+     * @param chunk the tasks published since the last call
+     */
+    @Override
+    protected void process(List<Task> chunk) {
+        view.addRowsOnTable(chunk);
+    }
+
+    /**
+     * This method hides the loading indicator and records the end of the loading in the
+     * {@link StartupTimer StartupTimer}, it is called by the event dispatch thread.<br>
+     * If the tasks could not be read the error is shown to the user, the tasks already read stay in the table.
+     */
+    @Override
+    protected void done() {
+        view.setLoading(false);
+        try {
+            get();
+            StartupTimer.phase("dailyLoaded");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            showLoadError(e.getCause());
+        }
+    }
+
+    /**
+     * This method shows to the user why the tasks of today could not be read.
+     * @param cause the error thrown while the tasks were read
+     */
+    private void showLoadError(Throwable cause) {
+        LOGGER.log(Level.WARNING, "There was a problem while loading the tasks of today", cause);
+        view.getInfoViewHandler().showError(
+                resourceBundle.getString("loadErrorTitle"),
+                resourceBundle.getString("loadErrorMessage") + "\n" + cause.getMessage()
+        );
+    }
+
+}
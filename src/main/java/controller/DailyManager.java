@@ -1,38 +1,64 @@
 package controller;
 
-import controller.persistence.database.management.TaskDao;
 import model.Task;
 import view.View;
 
-import java.util.List;
+import javax.swing.*;
+import java.util.ResourceBundle;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * This class updates the Daily which is the little table that shows the tasks that are
- * executed today.
+ * executed today.<br>
+ * The tasks of today are kept in memory by a {@link DailyCache DailyCache}, so the database is read
+ * only once and the table is emptied automatically at midnight.
  * @author Patrich Tivoli
  */
 public class DailyManager {
 
     private View view;
+    private final ResourceBundle resourceBundle;
+    private final DailyCache dailyCache;
 
-    public DailyManager(View view) {
+    public DailyManager(View view, ScheduledExecutorService scheduler, ResourceBundle resourceBundle) {
         this.view = view;
+        this.resourceBundle = resourceBundle;
+        this.dailyCache = new DailyCache(scheduler);
+        this.dailyCache.addRolloverListener(day -> SwingUtilities.invokeLater(view::clearTable));
     }
 
     /**
      * This method initialize the Daily.<br>
-     * It calls the DAO to retrieve all the tasks executed today through the method
-     * {@link TaskDao#getDailyTask() getDailyTask}. Once all the tasks are retrieved the table rows are added
-     * and displayed to the user.
+     * The tasks executed today are read from the database by a {@link DailyLoader DailyLoader} in background,
+     * while the view shows a loading indicator. The table rows are added in chunks while the tasks are read.
      * @see Task
-     * @see TaskDao
+     * @see DailyCache
+     * @see DailyLoader
      * @see View
      */
     public void initDaily() {
-        List<Task> taskList = TaskDao.getDailyTask();
-        for (Task task : taskList) {
+        view.setLoading(true);
+        new DailyLoader(dailyCache, view, resourceBundle).execute();
+    }
+
+    /**
+     * This method adds a stopped task to the cache and, if it started today, to the table.
+     * @param task the stopped task
+     * @see DailyCache#add(Task)
+     */
+    public void addTask(Task task) {
+        if (dailyCache.add(task)) {
             view.addRowOnTable(task);
         }
     }
 
+    /**
+     * This method returns the cache of the tasks executed today, so the tasks and the totals of today can
+     * be read without using the database.
+     * @return the cache of today
+     */
+    public DailyCache getDailyCache() {
+        return dailyCache;
+    }
+
 }
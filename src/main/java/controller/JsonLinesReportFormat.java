@@ -0,0 +1,73 @@
+package controller;
+
+import model.FancyFormatter;
+import model.Task;
+import model.TimeUtils;
+
+/**
+ * This class is the JSON Lines format of the reports: every line is a JSON object like
+ * <code>{"taskName":"name","start":"2023-01-05T09:00:00","end":"2023-01-05T10:00:00","durationMillis":3600000}</code>.
+ * @author Patrich Tivoli
+ * @see <a href="https://jsonlines.org/">JSON Lines</a>
+ */
+public class JsonLinesReportFormat extends LineReportFormat {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    @Override
+    public String getBundleKey() {
+        return "reportFormatJsonLines";
+    }
+
+    @Override
+    public String getFileExtension() {
+        return ".jsonl";
+    }
+
+    @Override
+    protected void appendTask(StringBuilder line, Task task, FancyFormatter formatter) {
+        line.append("{\"taskName\":\"");
+        appendEscaped(line, task.getTaskName());
+        line.append("\",\"start\":\"");
+        TimeUtils.appendIsoDateTime(line, task.getStartTime());
+        line.append("\",\"end\":\"");
+        TimeUtils.appendIsoDateTime(line, task.getEndTime());
+        line.append("\",\"durationMillis\":").append(task.getDuration()).append('}');
+    }
+
+    /**
+     * This method appends a string escaped for a JSON string: the quotes, the backslashes and the control
+     * characters are escaped.
+     * @param line the builder of the line
+     * @param text the string
+     */
+    private static void appendEscaped(StringBuilder line, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+    }
+
+}
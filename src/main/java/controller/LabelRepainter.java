@@ -0,0 +1,47 @@
+package controller;
+
+import javax.swing.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class updates the text of a {@link JLabel label} from a thread that is not the event dispatch thread.<br>
+ * The text is changed by the event dispatch thread, but only one change at a time is waiting to be executed:
+ * if the text is updated again before the label is repainted, the label just shows the last text.
+ * @author Patrich Tivoli
+ * @see SwingUtilities#invokeLater(Runnable)
+ */
+public class LabelRepainter {
+
+    private final JLabel label;
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private volatile String text;
+
+    /**
+     * This constructor makes the repainter of a label, the label keeps its text until it is updated.
+     * @param label the label that is repainted
+     */
+    public LabelRepainter(JLabel label) {
+        this.label = label;
+    }
+
+    /**
+     * This method sets the text that the label has to show and, if it is not already waiting,
+     * it asks the event dispatch thread to repaint the label.
+     * @param text the new text of the label
+     */
+    public void update(String text) {
+        this.text = text;
+        if (pending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::repaint);
+        }
+    }
+
+    /**
+     * This method changes the text of the label, it is executed by the event dispatch thread.
+     */
+    private void repaint() {
+        pending.set(false);
+        label.setText(text);
+    }
+
+}
@@ -0,0 +1,87 @@
+package controller;
+
+import controller.persistence.FileManager;
+import model.FancyFormatter;
+import model.Task;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * This class is the base of the formats in which every task is a line of text.<br>
+ * Every task is appended to a {@link StringBuilder StringBuilder} that is reused for all the lines and then it is
+ * written by a {@link FileManager FileManager}, so no string is made for the tasks. Every writer has its own
+ * {@link FancyFormatter FancyFormatter}, so the date of the tasks is written again only when it changes.
+ * @author Patrich Tivoli
+ */
+public abstract class LineReportFormat implements ReportFormat {
+
+    @Override
+    public boolean isText() {
+        return true;
+    }
+
+    @Override
+    public TaskWriter open(Path path, int compressionLevel, boolean header) throws IOException {
+        FileManager fileManager = compressionLevel == NOT_COMPRESSED
+                ? new FileManager(path.toString(), false)
+                : new FileManager(path.toString(), compressionLevel);
+        LineWriter writer = new LineWriter(fileManager);
+        if (header) {
+            writer.writeHeader();
+        }
+        return writer;
+    }
+
+    /**
+     * This method appends the header of the format, the first line of the file.
+     * @param line the builder of the line, it is empty
+     * @return true if the format has a header, false otherwise
+     */
+    protected boolean appendHeader(StringBuilder line) {
+        return false;
+    }
+
+    /**
+     * This method appends a task as a line, without the new line.
+     * @param line the builder of the line, it is empty
+     * @param task the task
+     * @param formatter the formatter of the writer, it can be used to write the dates and the durations
+     */
+    protected abstract void appendTask(StringBuilder line, Task task, FancyFormatter formatter);
+
+    /**
+     * This class writes the tasks as lines of text.
+     */
+    private class LineWriter implements TaskWriter {
+
+        private final FileManager fileManager;
+        private final FancyFormatter formatter = new FancyFormatter();
+        private final StringBuilder line = new StringBuilder(128);
+
+        LineWriter(FileManager fileManager) {
+            this.fileManager = fileManager;
+        }
+
+        void writeHeader() throws IOException {
+            line.setLength(0);
+            if (appendHeader(line)) {
+                fileManager.write(line);
+            }
+        }
+
+        @Override
+        public void write(Task task) throws IOException {
+            line.setLength(0);
+            appendTask(line, task, formatter);
+            fileManager.write(line);
+        }
+
+        @Override
+        public void close() throws IOException {
+            fileManager.closeFileManager();
+        }
+
+    }
+
+}
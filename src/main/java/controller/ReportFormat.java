@@ -0,0 +1,76 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * This interface is a format of the list of tasks of a report, the {@link ReportGenerator ReportGenerator} reads
+ * the tasks and the format writes them in the file.<br>
+ * The program has four formats: {@link TextReportFormat text}, {@link CsvReportFormat CSV},
+ * {@link JsonLinesReportFormat JSON Lines} and {@link BinaryReportFormat binary}. Other formats can be added
+ * without changing the program: a jar in the classpath with an implementation of this interface listed in
+ * <code>META-INF/services/controller.ReportFormat</code> is found by {@link ServiceLoader ServiceLoader}.<br>
+ * The formats made of lines should extend {@link LineReportFormat LineReportFormat}, which writes every task
+ * in a buffer that is reused and can compress the file.
+ * @author Patrich Tivoli
+ * @see TaskWriter
+ */
+public interface ReportFormat {
+
+    /**
+     * The compression level used to write a file that is not compressed.
+     */
+    int NOT_COMPRESSED = Integer.MIN_VALUE;
+
+    /**
+     * This method returns the key of the name of the format in the resource bundle, if the bundle does not
+     * contain it, the key is the name.
+     * @return the key of the name
+     */
+    String getBundleKey();
+
+    /**
+     * This method returns the extension of the files of this format.
+     * @return the extension, with the dot
+     */
+    String getFileExtension();
+
+    /**
+     * This method tells if the files of this format are made of lines of text. A text file can be compressed and
+     * it can be generated in parallel, because the parts of the report can be appended one after the other.
+     * @return true if the format is text, false otherwise
+     */
+    boolean isText();
+
+    /**
+     * This method makes a file of this format, if it exists it is replaced.
+     * @param path the file
+     * @param compressionLevel the level of the gzip compression from 0 to 9, -1 for the default level or
+     *                         {@link ReportFormat#NOT_COMPRESSED NOT_COMPRESSED}; it is ignored if the format
+     *                         is not text
+     * @param header true if the file starts the report, so it has the header of the format, false if the file
+     *               is a part that is appended to another one
+     * @return the writer of the tasks
+     * @throws IOException in case something goes wrong
+     */
+    TaskWriter open(Path path, int compressionLevel, boolean header) throws IOException;
+
+    /**
+     * This method returns all the formats: the formats of the program followed by the formats found by
+     * {@link ServiceLoader ServiceLoader}.
+     * @return the formats
+     */
+    static List<ReportFormat> getFormats() {
+        List<ReportFormat> formats = new ArrayList<>(Arrays.asList(
+                new TextReportFormat(), new CsvReportFormat(), new JsonLinesReportFormat(), new BinaryReportFormat()));
+        for (ReportFormat format : ServiceLoader.load(ReportFormat.class)) {
+            formats.add(format);
+        }
+        return formats;
+    }
+
+}
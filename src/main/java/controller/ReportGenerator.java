@@ -1,48 +1,341 @@
 package controller;
 
 import controller.persistence.FileManager;
+import controller.persistence.database.management.DatabaseManager;
 import controller.persistence.database.management.TaskDao;
+import exceptions.TimeTrackerException;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import model.ReportType;
 import model.Task;
+import model.TaskSummary;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
 
 /**
- * This class is used to make a report, a report is a file with a list of tasks.<br>
- * The report is a text file with a ".dat" extension.
+ * This class is used to make a report, a report is a file with a list of tasks or with
+ * the total time spent on them.<br>
+ * The list of tasks is written in a {@link ReportFormat format} chosen by the user: text, CSV, JSON Lines,
+ * binary or a format added with {@link java.util.ServiceLoader ServiceLoader}; the summaries are text files.<br>
+ * When the range of the report contains more than one month, the report can be generated in parallel:
+ * every month is read and written in a temporary file by its own thread, then the temporary files are
+ * appended in chronological order to the report, so the result is the same of the sequential generation;
+ * only the formats made of text that are not compressed can be generated in this way.<br>
+ * The text reports can be compressed with gzip, in this case the file has a ".gz" extension and it is always
+ * generated sequentially: the months compressed one by one would be different members of the file, so the
+ * result would not be the same.<br>
+ * The time needed to generate every report and the number of tasks written are recorded in the
+ * {@link MetricsRegistry metrics}.
  * @author Patrich Tivoli
  */
 public class ReportGenerator {
 
+    /**
+     * The name of the system property used to choose how many months are generated at the same time,
+     * by default it is the number of processors, limited by the number of connections to the database.
+     */
+    public static final String PARALLELISM_PROPERTY = "timeTracker.report.parallelism";
+    /**
+     * The name of the system property used to choose the level of the compression of the compressed reports,
+     * from 0 (no compression) to 9 (best compression), by default it is the default level of gzip.
+     */
+    public static final String COMPRESSION_LEVEL_PROPERTY = "timeTracker.report.compressionLevel";
+
+    private static final String EXPORT_FILE_NAME = "export.dat";
+    private static final String COMPRESSED_EXTENSION = ".gz";
+
+    private static final Histogram TASK_REPORT_LATENCY = MetricsRegistry.histogram("report.generateTasks");
+    private static final Histogram SUMMARY_REPORT_LATENCY = MetricsRegistry.histogram("report.generateSummary");
+    private static final Counter WRITTEN_TASKS = MetricsRegistry.counter("report.writtenTasks");
+
     private LocalDateTime from;
     private LocalDateTime to;
+    private final int parallelism;
+    private boolean compressed;
+    private final int compressionLevel = Integer.getInteger(COMPRESSION_LEVEL_PROPERTY, Deflater.DEFAULT_COMPRESSION);
 
     public ReportGenerator(LocalDateTime from, LocalDateTime to) {
+        this(from, to, Integer.getInteger(PARALLELISM_PROPERTY, defaultParallelism()));
+    }
+
+    public ReportGenerator(LocalDateTime from, LocalDateTime to, int parallelism) {
         this.from = from;
         this.to = to;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * This method chooses if the text reports are compressed with gzip.
+     * @param compressed true to compress the reports, false otherwise
+     * @see ReportGenerator#COMPRESSION_LEVEL_PROPERTY
+     */
+    public void setCompressed(boolean compressed) {
+        this.compressed = compressed;
     }
 
     /**
      * This method aims to make a text file with a list of tasks that are included in a time range.<br>
+     * The file has the same location of the program and it is called export.dat, or export.dat.gz if it is
+     * compressed.
+     * @return the number of tasks and bytes written in the file
+     * @see ReportGenerator#generateTaskReport(ReportFormat, Path)
+     * @see TextReportFormat
+     * @throws IOException thrown when there are problems while saving the task
+     */
+    public ReportSummary generateTextReport() throws IOException {
+        return generateTaskReport(new TextReportFormat(), getExportPath());
+    }
+
+    /**
+     * This method aims to make a file with a list of tasks that are included in a time range.<br>
      * The time range is given by the constructor of this method.<br>
      * In order to retrieve all the tasks from the desired time range, the method
-     * {@link TaskDao#getTaskFromRange(LocalDateTime, LocalDateTime) getTaskFromRange} of the DAO is used,
-     * then, all the retrieved tasks will be putted in a file with the same location of the program
-     * and it will be called export.dat.
+     * {@link TaskDao#streamTaskFromRange(LocalDateTime, LocalDateTime, java.util.function.Consumer) streamTaskFromRange}
+     * of the DAO is used, every task is written in the file by the format as soon as it is read, so the memory
+     * used does not depend on the number of tasks.<br>
+     * If the format is text, the file is compressed if the report is compressed; otherwise, if the parallelism
+     * is greater than one and the tasks of the range start in different months, the months are generated in parallel.
+     * @param format the format of the file
+     * @param path the file, if it exists it is replaced
+     * @return the number of tasks and bytes written in the file
      * @see Task
-     * @see List
      * @see TaskDao
-     * @see FileManager
+     * @see ReportFormat
+     * @see ReportSummary
+     * @throws IOException thrown when there are problems while saving the task
+     */
+    public ReportSummary generateTaskReport(ReportFormat format, Path path) throws IOException {
+        long start = System.nanoTime();
+        List<LocalDateTime> partitions = parallelism > 1 && format.isText() && !compressed
+                ? getMonthlyPartitions()
+                : new ArrayList<>();
+        long rows;
+        if (partitions.size() > 2) {
+            rows = generateParallelTaskReport(format, path, partitions);
+        } else {
+            rows = writeTasks(format, path, true, from, null);
+        }
+        WRITTEN_TASKS.add(rows);
+        TASK_REPORT_LATENCY.recordSince(start);
+        return new ReportSummary(rows, Files.size(path));
+    }
+
+    /**
+     * This method aims to make a text file with the total time spent on the tasks of the time range, grouped
+     * by task name, day, ISO week or month. For every group there is a line with the total time, the number
+     * of tasks and the average time.<br>
+     * The totals are computed by the database with
+     * {@link TaskDao#getSummary(LocalDateTime, LocalDateTime, ReportType) getSummary}, so the tasks are not read.
+     * The file is compressed if the report is compressed.
+     * @param reportType how the tasks are grouped
+     * @param path the file, if it exists it is replaced
+     * @return the number of lines and bytes written in the file
+     * @see ReportType
+     * @see TaskSummary
+     * @throws IOException thrown when there are problems while saving the summary
+     */
+    public ReportSummary generateSummaryReport(ReportType reportType, Path path) throws IOException {
+        long start = System.nanoTime();
+        List<TaskSummary> summaries = TaskDao.getSummary(from, to, reportType);
+        FileManager fileManager = compressed
+                ? new FileManager(path.toString(), compressionLevel)
+                : new FileManager(path.toString(), false);
+        try {
+            for (TaskSummary summary : summaries) {
+                fileManager.write(summary.toString());
+            }
+        } finally {
+            fileManager.closeFileManager();
+        }
+        SUMMARY_REPORT_LATENCY.recordSince(start);
+        return new ReportSummary(summaries.size(), Files.size(path));
+    }
+
+    /**
+     * This method splits the range of the report in months.<br>
+     * The first partition starts with the first task of the range and then there is a partition for every month
+     * until the last task of the range.
+     * @return the start of every partition followed by the end of the last one, empty if there are no tasks
+     * @see TaskDao#getStartTimeBounds(LocalDateTime, LocalDateTime)
+     */
+    private List<LocalDateTime> getMonthlyPartitions() {
+        List<LocalDateTime> partitions = new ArrayList<>();
+        LocalDateTime[] bounds = TaskDao.getStartTimeBounds(from, to);
+        if (bounds != null) {
+            LocalDateTime start = bounds[0];
+            while (!start.isAfter(bounds[1])) {
+                partitions.add(start);
+                start = start.toLocalDate().withDayOfMonth(1).plusMonths(1).atStartOfDay();
+            }
+            partitions.add(start);
+        }
+        return partitions;
+    }
+
+    /**
+     * This method generates every partition in a temporary file using a pool of threads, then the temporary
+     * files are appended in chronological order to the report. Only the first partition has the header of the
+     * format.<br>
+     * The temporary files are deleted only when all the threads are terminated, so no thread is still writing
+     * in them.
+     * @param format the format of the file, it must be text and not compressed
+     * @param path the file
+     * @param partitions the start of every partition followed by the end of the last one
+     * @return the number of tasks written in the report
+     * @throws IOException thrown when there are problems while saving the task
+     */
+    private long generateParallelTaskReport(ReportFormat format, Path path, List<LocalDateTime> partitions) throws IOException {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, partitions.size() - 1), runnable -> {
+            Thread thread = new Thread(runnable, "report-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Path> partitionFiles = new ArrayList<>();
+        List<Future<Long>> partitionRows = new ArrayList<>();
+        try {
+            for (int i = 0; i < partitions.size() - 1; i++) {
+                Path partitionFile = Files.createTempFile("export", ".part");
+                partitionFiles.add(partitionFile);
+                LocalDateTime partitionStart = partitions.get(i);
+                LocalDateTime partitionEnd = partitions.get(i + 1);
+                boolean header = i == 0;
+                partitionRows.add(executor.submit(() -> writeTasks(format, partitionFile, header, partitionStart, partitionEnd)));
+            }
+            return mergePartitions(path, partitionFiles, partitionRows);
+        } finally {
+            executor.shutdownNow();
+            awaitTermination(executor);
+            for (Path partitionFile : partitionFiles) {
+                Files.deleteIfExists(partitionFile);
+            }
+        }
+    }
+
+    /**
+     * This method appends the temporary files to the report, every file is appended as soon as its
+     * partition is completed.
+     * @param path the file of the report
+     * @param partitionFiles the temporary files in chronological order
+     * @param partitionRows the number of tasks of every partition
+     * @return the number of tasks written in the report
+     * @throws IOException thrown when there are problems while saving the task
+     */
+    private long mergePartitions(Path path, List<Path> partitionFiles, List<Future<Long>> partitionRows) throws IOException {
+        long rows = 0;
+        try (FileChannel export = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int i = 0; i < partitionFiles.size(); i++) {
+                rows += waitFor(partitionRows.get(i));
+                try (FileChannel partition = FileChannel.open(partitionFiles.get(i), StandardOpenOption.READ)) {
+                    long size = partition.size();
+                    long position = 0;
+                    while (position < size) {
+                        position += partition.transferTo(position, size - position, export);
+                    }
+                }
+                Files.delete(partitionFiles.get(i));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * This method waits for the threads of a pool to terminate, if the wait is interrupted the thread
+     * keeps the interrupt.
+     * @param executor the pool, already shut down
+     */
+    private static void awaitTermination(ExecutorService executor) {
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * This method waits for a partition to be completed.
+     * @param partition the partition
+     * @return the number of tasks of the partition
+     * @throws IOException if the partition could not be written
+     */
+    private static long waitFor(Future<Long> partition) throws IOException {
+        try {
+            return partition.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TimeTrackerException("Interrupted while generating the report", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new TimeTrackerException("There was a problem while generating the report", e.getCause());
+        }
+    }
+
+    /**
+     * This method writes in a file the tasks of the report that start in a range.<br>
+     * Every task is written by the same {@link TaskWriter writer}, so the formats made of text do not make
+     * the lines as strings.
+     * @param format the format of the file
+     * @param path the file
+     * @param header true if the file has the header of the format
+     * @param startFrom the tasks must start at or after this date and time, null for no limit
+     * @param startBefore the tasks must start before this date and time, null for no limit
+     * @return the number of tasks written
      * @throws IOException thrown when there are problems while saving the task
      */
-    public void generateTextReport() throws IOException {
-        List<Task> taskList = TaskDao.getTaskFromRange(from, to);
-        FileManager fileManager = new FileManager("export.dat", false);
-        for (Task task : taskList) {
-            fileManager.write(task.toString());
+    private long writeTasks(ReportFormat format, Path path, boolean header, LocalDateTime startFrom,
+                            LocalDateTime startBefore) throws IOException {
+        int level = compressed && format.isText() ? compressionLevel : ReportFormat.NOT_COMPRESSED;
+        try (TaskWriter writer = format.open(path, level, header)) {
+            return TaskDao.streamTaskFromRange(startFrom, startBefore, to, task -> {
+                try {
+                    writer.write(task);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
-        fileManager.closeFileManager();
+    }
+
+    /**
+     * This method returns the default path of the text report.
+     * @return export.dat, or export.dat.gz if the report is compressed
+     */
+    private Path getExportPath() {
+        return Paths.get(compressed ? EXPORT_FILE_NAME + COMPRESSED_EXTENSION : EXPORT_FILE_NAME);
+    }
+
+    /**
+     * This method returns the default parallelism: the number of processors, but leaving at least
+     * one connection to the database free for the other parts of the program.
+     * @return the default parallelism
+     */
+    private static int defaultParallelism() {
+        return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), DatabaseManager.getMaxConnections() - 1));
     }
 
 }
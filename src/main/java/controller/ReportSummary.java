@@ -0,0 +1,31 @@
+package controller;
+
+/**
+ * This class contains the summary of a generated report: how many tasks it contains and
+ * how big the file is.
+ * @author Patrich Tivoli
+ */
+public class ReportSummary {
+
+    private final long rows;
+    private final long bytes;
+
+    public ReportSummary(long rows, long bytes) {
+        this.rows = rows;
+        this.bytes = bytes;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return "Rows: " + rows + "\t" + "Bytes: " + bytes;
+    }
+
+}
@@ -0,0 +1,57 @@
+package controller;
+
+import metrics.MetricsRegistry;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * This class measures how long the program takes to start.<br>
+ * Every phase of the start is logged with the milliseconds passed since the start of the main method and it is
+ * kept as a gauge <code>startup.phase</code> in the {@link MetricsRegistry metrics}.
+ * {@link StartupTimer#start() start} should be called as the first thing of the main method.
+ * @author Patrich Tivoli
+ */
+public class StartupTimer {
+
+    private static final Logger LOGGER = Logger.getLogger(StartupTimer.class.getName());
+    private static volatile long startNanos = System.nanoTime();
+    private static volatile long startMillis = System.currentTimeMillis();
+
+    /**
+     * Private constructor to hide the implicit one.
+     */
+    private StartupTimer() { }
+
+    /**
+     * This method takes the time when the main method starts, the phases are measured from it.
+     */
+    public static void start() {
+        startNanos = System.nanoTime();
+        startMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * This method records the end of a phase of the start.
+     * @param phase the name of the phase
+     * @return the milliseconds passed since the start of the main method
+     */
+    public static long phase(String phase) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        MetricsRegistry.gauge("startup." + phase, () -> millis);
+        LOGGER.info(() -> "Startup phase " + phase + " ended after " + millis + " ms");
+        return millis;
+    }
+
+    /**
+     * This method logs how long the JVM took to run the main method. It uses the management of the JVM,
+     * which is slow to load, so it should be called by a background thread.
+     */
+    public static void logJvmStart() {
+        long millis = startMillis - ManagementFactory.getRuntimeMXBean().getStartTime();
+        MetricsRegistry.gauge("startup.jvm", () -> millis);
+        LOGGER.info(() -> "The JVM took " + millis + " ms to run the main method");
+    }
+
+}
@@ -0,0 +1,23 @@
+package controller;
+
+import model.Task;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * This interface writes the tasks of a report in a file, in a {@link ReportFormat format}.<br>
+ * A writer is used by just one thread.
+ * @author Patrich Tivoli
+ * @see ReportFormat#open(java.nio.file.Path, int, boolean)
+ */
+public interface TaskWriter extends Closeable {
+
+    /**
+     * This method writes a task.
+     * @param task the task
+     * @throws IOException in case something goes wrong
+     */
+    void write(Task task) throws IOException;
+
+}
@@ -0,0 +1,29 @@
+package controller;
+
+import model.FancyFormatter;
+import model.Task;
+
+/**
+ * This class is the text format of the reports, the same of report.dat: every task is written like
+ * {@link Task#toString()}, e.g. <code>Task: name&#9;Start: 2023/01/05 09:00:00&#9;End: 2023/01/05 10:00:00&#9;Delta: 01:00:00</code>.
+ * @author Patrich Tivoli
+ * @see Task#appendTo(StringBuilder, FancyFormatter)
+ */
+public class TextReportFormat extends LineReportFormat {
+
+    @Override
+    public String getBundleKey() {
+        return "reportFormatText";
+    }
+
+    @Override
+    public String getFileExtension() {
+        return ".dat";
+    }
+
+    @Override
+    protected void appendTask(StringBuilder line, Task task, FancyFormatter formatter) {
+        task.appendTo(line, formatter);
+    }
+
+}
@@ -1,109 +1,95 @@
 package controller;
 
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import model.Stopwatch;
+
 import javax.swing.*;
-import java.util.TimerTask;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * This class updates the timer that is used to count the time of a single task.
+ * This class updates the timers of all the tasks that are running.<br>
+ * It is executed periodically by the scheduler of the {@link Controller Controller}, so there is a single job
+ * for any number of timers and no thread or job is made when a task is started. The time shown is always
+ * computed by the {@link Stopwatch Stopwatch} of the task, so it does not drift when an update is late.<br>
+ * All the labels that are changed in a tick are repainted with a single request to the event dispatch
+ * thread, and only one request at a time is waiting to be executed.<br>
+ * The time needed by every tick and the time a repaint waits for the event dispatch thread are recorded in the
+ * {@link MetricsRegistry metrics}, together with the number of timers.
  * @author Patrich Tivoli
+ * @see ActiveTimer
  */
-public class TimerManager extends TimerTask {
-
-    private String clock;
-    private JLabel labelClock;
-
-    public TimerManager(String clock, JLabel labelClock){
-        this.clock = clock;
-        this.labelClock = labelClock;
-    }
+public class TimerManager implements Runnable {
 
-    /**
-     * This method runs the methods to update the {@link String string} of the clock and then the {@link JLabel label} of
-     * the clock.
-     * @see String
-     * @see JLabel
-     */
-    @Override
-    public void run() {
-        clock = updateHour();
-        labelClock.setText(clock);
-    }
+    private final List<ActiveTimer> timers = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final Histogram tickLatency = MetricsRegistry.histogram("timers.tick");
+    private final Histogram repaintDelay = MetricsRegistry.histogram("timers.repaintDelay");
 
     /**
-     * This method updates the {@link String string} of the clock.<br>
-     * First of all, all the substrings are converted into integers, for substrings it is meant to be
-     * seconds, minutes and hours; after updating them, the string is re-built again so that it has the
-     * following pattern: HH:mm:ss.
-     * @return the string updated of one second with the pattern HH:mm:ss
+     * This constructor makes the manager without timers.
      */
-    private String updateHour() {
-        int seconds = getSeconds();
-        int minutes = getMinutes();
-        int hours = getHours();
-        if (++seconds >= 60) {
-            minutes++;
-            seconds = 0;
-        }
-        if (minutes >= 60) {
-            hours++;
-            minutes = 0;
-        }
-        return composeString(seconds, minutes, hours);
+    public TimerManager() {
+        MetricsRegistry.gauge("timers.active", this::size);
     }
 
     /**
-     * It returns the seconds from a string formatted in this way: HH:mm:ss.<br>
-     * Just the {@link String#substring(int, int) substring} method is called, together with
-     * the {@link Integer#parseInt(String) parseInt} method in order to get the integer.
-     * @return the number of seconds from a string formatted in  this way: HH:mm:ss.
+     * This method adds a timer, it is updated from the next tick.
+     * @param timer the timer of the task that is started
      */
-    private int getSeconds(){
-        return Integer.parseInt(clock.substring(6,8));
+    public void add(ActiveTimer timer) {
+        timers.add(timer);
     }
 
     /**
-     * It returns the minutes from a string formatted in this way: HH:mm:ss.<br>
-     * Just the {@link String#substring(int, int) substring} method is called, together with
-     * the {@link Integer#parseInt(String) parseInt} method in order to get the integer.
-     * @return the number of minutes from a string formatted in  this way: HH:mm:ss.
+     * This method removes a timer, it is not updated anymore.
+     * @param timer the timer of the task that is stopped
      */
-    private int getMinutes(){
-        return Integer.parseInt(clock.substring(3,5));
+    public void remove(ActiveTimer timer) {
+        timers.remove(timer);
     }
 
     /**
-     * It returns the hours from a string formatted in this way: HH:mm:ss.<br>
-     * Just the {@link String#substring(int, int) substring} method is called, together with
-     * the {@link Integer#parseInt(String) parseInt} method in order to get the integer.
-     * @return the number of hours from a string formatted in  this way: HH:mm:ss.
+     * This method returns the number of timers that are running or paused.
+     * @return the number of timers
      */
-    private int getHours(){
-        return Integer.parseInt(clock.substring(0,2));
+    public int size() {
+        return timers.size();
     }
 
     /**
-     * This method compose a string formatted in this way: HH:mm:ss from its parameters.<br>
-     * The method {@link TimerManager#adapterCiphers(int) adapterCiphers} is used in order to
-     * always have a string composed by two characters.
-     * @param seconds the number of seconds
-     * @param minutes the number of minutes
-     * @param hours the number of hours
-     * @return a string formatted in this way: HH:mm:ss
+     * This method computes the time of every timer that is not paused and, if at least one of them is
+     * changed, it asks the event dispatch thread to repaint the labels.
+     * @see ActiveTimer#tick()
      */
-    private String composeString(int seconds, int minutes, int hours){
-        return adapterCiphers(hours) + ":" + adapterCiphers(minutes) + ":" + adapterCiphers(seconds);
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        boolean changed = false;
+        for (ActiveTimer timer : timers) {
+            if (!timer.getStopwatch().isPaused()) {
+                changed |= timer.tick();
+            }
+        }
+        if (changed && pending.compareAndSet(false, true)) {
+            long requested = System.nanoTime();
+            SwingUtilities.invokeLater(() -> repaint(requested));
+        }
+        tickLatency.recordSince(start);
     }
 
     /**
-     * This method takes an integer and builds a string with the value of the integer formatted with
-     * two characters.
-     * @param number the number to be converted
-     * @return the converted string
+     * This method writes the time of every timer on its label, it is executed by the event dispatch thread.
+     * @param requested when the repaint was requested, from {@link System#nanoTime() nanoTime}
      */
-    private String adapterCiphers(int number) {
-        String numberString = "0" + number;
-        int lengthNumberString = numberString.length();
-        return numberString.substring(lengthNumberString - 2, lengthNumberString);
+    private void repaint(long requested) {
+        repaintDelay.recordSince(requested);
+        pending.set(false);
+        for (ActiveTimer timer : timers) {
+            timer.repaint();
+        }
     }
 
 }
@@ -0,0 +1,275 @@
+package controller.persistence;
+
+import model.Task;
+import model.TimeUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.function.LongConsumer;
+
+import static controller.persistence.BinaryReportWriter.HEADER_SIZE;
+import static controller.persistence.BinaryReportWriter.MAGIC;
+import static controller.persistence.BinaryReportWriter.RECORD_SIZE;
+import static controller.persistence.BinaryReportWriter.SORTED_BY_START;
+import static controller.persistence.BinaryReportWriter.VERSION;
+
+/**
+ * This class reads a binary report written by the {@link BinaryReportWriter BinaryReportWriter}.<br>
+ * The records are memory-mapped, so they are read directly from the file without copying them and without
+ * making objects, even when the file is bigger than the memory. The dictionary of the task names and the
+ * sparse index are loaded in memory when the report is opened.<br>
+ * If the records are sorted by start, the range scans find the first record with the sparse index and a binary
+ * search; otherwise all the records are checked.<br>
+ * After the report is opened, it can be read by more threads at the same time.
+ * @author Patrich Tivoli
+ * @see BinaryReportWriter
+ */
+public class BinaryReportReader implements Closeable {
+
+    /**
+     * The number of records of every mapped segment of the file, a segment is at most 1 GB.
+     */
+    private static final int SEGMENT_RECORDS = (1 << 30) / RECORD_SIZE;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long recordCount;
+    private final boolean sortedByStart;
+    private final int indexInterval;
+    private final long[] index;
+    private final String[] taskNames;
+
+    /**
+     * This constructor opens a binary report and reads its header, its dictionary and its index.
+     * @param path the file
+     * @throws IOException if the file cannot be read or it is not a binary report
+     */
+    public BinaryReportReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = read(0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getShort() != VERSION) {
+                throw new IOException(path + " is not a binary report");
+            }
+            sortedByStart = (header.getShort() & SORTED_BY_START) != 0;
+            recordCount = header.getLong();
+            long dictionaryOffset = header.getLong();
+            long indexOffset = header.getLong();
+            indexInterval = header.getInt();
+            taskNames = readDictionary(dictionaryOffset, (int) (indexOffset - dictionaryOffset), header.getInt());
+            index = readIndex(indexOffset, (int) ((recordCount + indexInterval - 1) / indexInterval));
+            segments = mapRecords();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long size() {
+        return recordCount;
+    }
+
+    public boolean isSortedByStart() {
+        return sortedByStart;
+    }
+
+    public long getStartMillis(long record) {
+        return segment(record).getLong(offset(record));
+    }
+
+    public long getEndMillis(long record) {
+        return segment(record).getLong(offset(record) + Long.BYTES);
+    }
+
+    public long getDuration(long record) {
+        return segment(record).getLong(offset(record) + 2 * Long.BYTES);
+    }
+
+    public int getTaskNameId(long record) {
+        return segment(record).getInt(offset(record) + 3 * Long.BYTES);
+    }
+
+    /**
+     * This method returns the name of a task from the dictionary.
+     * @param taskNameId the id of the task name
+     * @return the name of the task
+     */
+    public String getTaskName(int taskNameId) {
+        return taskNames[taskNameId];
+    }
+
+    public int getTaskNameCount() {
+        return taskNames.length;
+    }
+
+    /**
+     * This method makes a {@link Task Task} from a record of the report.
+     * @param record the index of the record
+     * @return a new task
+     */
+    public Task getTask(long record) {
+        Task task = new Task(getTaskName(getTaskNameId(record)));
+        task.setStartTime(TimeUtils.fromEpochMillis(getStartMillis(record)));
+        task.setEndTime(TimeUtils.fromEpochMillis(getEndMillis(record)));
+        task.setDuration(getDuration(record));
+        return task;
+    }
+
+    /**
+     * This method gives to a consumer the index of every record with a task that starts in a range.
+     * @param from the tasks must start at or after this date and time, null for no limit
+     * @param before the tasks must start before this date and time, null for no limit
+     * @param consumer the consumer of the indexes of the records
+     */
+    public void forEachStartingIn(LocalDateTime from, LocalDateTime before, LongConsumer consumer) {
+        long fromMillis = from == null ? Long.MIN_VALUE : TimeUtils.toEpochMillis(from);
+        long beforeMillis = before == null ? Long.MAX_VALUE : TimeUtils.toEpochMillis(before);
+        if (sortedByStart) {
+            for (long record = lowerBound(fromMillis); record < recordCount && getStartMillis(record) < beforeMillis; record++) {
+                consumer.accept(record);
+            }
+        } else {
+            for (long record = 0; record < recordCount; record++) {
+                long startMillis = getStartMillis(record);
+                if (startMillis >= fromMillis && startMillis < beforeMillis) {
+                    consumer.accept(record);
+                }
+            }
+        }
+    }
+
+    /**
+     * This method finds the first record that starts at or after a given time, the records must be sorted by
+     * start.<br>
+     * The sparse index gives the block of records that contains it, then the block is searched with a binary
+     * search on the mapped records.
+     * @param startMillis the start in milliseconds since 1970-01-01T00:00
+     * @return the index of the record, the number of records if there is not
+     */
+    public long lowerBound(long startMillis) {
+        int low = 0;
+        int high = index.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (index[middle] < startMillis) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        long first = Math.max(0, (long) (low - 1) * indexInterval);
+        long last = Math.min(recordCount, (long) low * indexInterval);
+        while (first < last) {
+            long middle = (first + last) >>> 1;
+            if (getStartMillis(middle) < startMillis) {
+                first = middle + 1;
+            } else {
+                last = middle;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * It closes the file, the records cannot be read anymore.
+     * @throws IOException in case something goes wrong
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * This method returns the mapped segment that contains a record.
+     * @param record the index of the record
+     * @return the segment
+     */
+    private ByteBuffer segment(long record) {
+        if (record < 0 || record >= recordCount) {
+            throw new IndexOutOfBoundsException("Record " + record + ", size " + recordCount);
+        }
+        return segments[(int) (record / SEGMENT_RECORDS)];
+    }
+
+    /**
+     * This method returns the position of a record in its segment.
+     * @param record the index of the record
+     * @return the position in bytes
+     */
+    private static int offset(long record) {
+        return (int) (record % SEGMENT_RECORDS) * RECORD_SIZE;
+    }
+
+    /**
+     * This method maps the records of the file in segments of at most {@value #SEGMENT_RECORDS} records.
+     * @return the segments
+     * @throws IOException in case something goes wrong
+     */
+    private MappedByteBuffer[] mapRecords() throws IOException {
+        MappedByteBuffer[] mapped = new MappedByteBuffer[(int) ((recordCount + SEGMENT_RECORDS - 1) / SEGMENT_RECORDS)];
+        for (int i = 0; i < mapped.length; i++) {
+            long firstRecord = (long) i * SEGMENT_RECORDS;
+            long records = Math.min(SEGMENT_RECORDS, recordCount - firstRecord);
+            mapped[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + firstRecord * RECORD_SIZE, records * RECORD_SIZE);
+        }
+        return mapped;
+    }
+
+    /**
+     * This method reads the dictionary of the task names.
+     * @param offset the position of the dictionary
+     * @param length the size of the dictionary in bytes
+     * @param count the number of task names
+     * @return the task names in order of id
+     * @throws IOException in case something goes wrong
+     */
+    private String[] readDictionary(long offset, int length, int count) throws IOException {
+        ByteBuffer dictionary = read(offset, length);
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[dictionary.getInt()];
+            dictionary.get(bytes);
+            names[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return names;
+    }
+
+    /**
+     * This method reads the sparse index.
+     * @param offset the position of the index
+     * @param entries the number of entries
+     * @return the start of the first record of every block
+     * @throws IOException in case something goes wrong
+     */
+    private long[] readIndex(long offset, int entries) throws IOException {
+        long[] starts = new long[entries];
+        read(offset, entries * Long.BYTES).asLongBuffer().get(starts);
+        return starts;
+    }
+
+    /**
+     * This method reads a part of the file.
+     * @param offset the position of the part
+     * @param length the size of the part in bytes
+     * @return a buffer with the part, ready to be read
+     * @throws IOException if the file ends before the part
+     */
+    private ByteBuffer read(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("The binary report is truncated");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+}
@@ -0,0 +1,187 @@
+package controller.persistence;
+
+import model.Task;
+import model.TimeUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class writes a binary report, a file that can be read by other programs without parsing text.<br>
+ * All the numbers are big-endian, the file is made of four sections:
+ * <ul>
+ *     <li>The header, {@value #HEADER_SIZE} bytes: the magic number "TTBX" (int), the version (short), the flags
+ *     (short, bit 0 is set if the records are sorted by start), the number of records (long), the position of
+ *     the dictionary (long), the position of the index (long), the number of records for every entry of the
+ *     index (int), the number of task names (int) and 8 bytes reserved</li>
+ *     <li>The records, one for every task, {@value #RECORD_SIZE} bytes each: the start (long), the end (long),
+ *     the duration (long) and the id of the task name (int); the start and the end are in milliseconds since
+ *     1970-01-01T00:00, see {@link TimeUtils#toEpochMillis(LocalDateTime) toEpochMillis}</li>
+ *     <li>The dictionary: every task name once, in order of id, as its length in bytes (int) followed by the
+ *     name in UTF-8</li>
+ *     <li>The sparse index: the start (long) of one record every {@value #INDEX_INTERVAL}, so a reader can find
+ *     a date without reading all the records</li>
+ * </ul>
+ * The records are written while the tasks are received, the dictionary, the index and the header are written when
+ * the writer is closed. The index is useful only if the tasks are given sorted by start.<br>
+ * This class is not thread safe.
+ * @author Patrich Tivoli
+ * @see BinaryReportReader
+ */
+public class BinaryReportWriter implements Closeable {
+
+    static final int MAGIC = 0x54544258;
+    static final short VERSION = 1;
+    static final short SORTED_BY_START = 1;
+    static final int HEADER_SIZE = 48;
+    static final int RECORD_SIZE = 28;
+    static final int INDEX_INTERVAL = 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Map<String, Integer> taskNameIds = new HashMap<>();
+    private final List<String> taskNames = new ArrayList<>();
+    private long[] index = new long[16];
+    private long recordCount;
+    private long lastStartMillis = Long.MIN_VALUE;
+    private boolean sortedByStart = true;
+    private boolean closed;
+
+    /**
+     * This constructor makes the file of the report, if it exists it is replaced.
+     * @param path the file
+     * @throws IOException in case something goes wrong
+     */
+    public BinaryReportWriter(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.channel.position(HEADER_SIZE);
+    }
+
+    /**
+     * This method writes the record of a task.
+     * @param task the task
+     * @throws IOException in case something goes wrong
+     */
+    public void write(Task task) throws IOException {
+        write(TimeUtils.toEpochMillis(task.getStartTime()), TimeUtils.toEpochMillis(task.getEndTime()),
+                task.getDuration(), task.getTaskName());
+    }
+
+    /**
+     * This method writes the record of a task.
+     * @param startMillis the start in milliseconds since 1970-01-01T00:00
+     * @param endMillis the end in milliseconds since 1970-01-01T00:00
+     * @param durationMillis the duration in milliseconds
+     * @param taskName the name of the task
+     * @throws IOException in case something goes wrong
+     */
+    public void write(long startMillis, long endMillis, long durationMillis, String taskName) throws IOException {
+        if (startMillis < lastStartMillis) {
+            sortedByStart = false;
+        }
+        lastStartMillis = startMillis;
+        if (recordCount % INDEX_INTERVAL == 0) {
+            int entry = (int) (recordCount / INDEX_INTERVAL);
+            if (entry == index.length) {
+                index = Arrays.copyOf(index, index.length * 2);
+            }
+            index[entry] = startMillis;
+        }
+        if (buffer.remaining() < RECORD_SIZE) {
+            flush();
+        }
+        buffer.putLong(startMillis).putLong(endMillis).putLong(durationMillis).putInt(getTaskNameId(taskName));
+        recordCount++;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * This method writes the dictionary, the index and the header, then it closes the file.
+     * @throws IOException in case something goes wrong
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            long dictionaryOffset = HEADER_SIZE + recordCount * RECORD_SIZE;
+            for (String taskName : taskNames) {
+                byte[] bytes = taskName.getBytes(StandardCharsets.UTF_8);
+                if (buffer.remaining() < Integer.BYTES + bytes.length) {
+                    flush();
+                }
+                buffer.putInt(bytes.length).put(bytes);
+            }
+            flush();
+            long indexOffset = channel.position();
+            int entries = (int) ((recordCount + INDEX_INTERVAL - 1) / INDEX_INTERVAL);
+            for (int entry = 0; entry < entries; entry++) {
+                if (buffer.remaining() < Long.BYTES) {
+                    flush();
+                }
+                buffer.putLong(index[entry]);
+            }
+            flush();
+            buffer.putInt(MAGIC)
+                    .putShort(VERSION)
+                    .putShort(sortedByStart ? SORTED_BY_START : 0)
+                    .putLong(recordCount)
+                    .putLong(dictionaryOffset)
+                    .putLong(indexOffset)
+                    .putInt(INDEX_INTERVAL)
+                    .putInt(taskNames.size())
+                    .putLong(0L);
+            channel.position(0);
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * This method returns the id of a task name, if the name is new it is added to the dictionary.
+     * @param taskName the name of the task
+     * @return the id of the task name
+     */
+    private int getTaskNameId(String taskName) {
+        Integer id = taskNameIds.get(taskName);
+        if (id == null) {
+            id = taskNames.size();
+            taskNames.add(taskName);
+            taskNameIds.put(taskName, id);
+        }
+        return id;
+    }
+
+    /**
+     * This method writes the content of the buffer at the current position of the file.
+     * @throws IOException in case something goes wrong
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+}
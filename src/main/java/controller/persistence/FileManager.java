@@ -1,20 +1,49 @@
 package controller.persistence;
 
-import exceptions.TimeTrackerException;
-import model.Task;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
 
 import java.io.BufferedWriter;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPOutputStream;
 
 /**
- * This class helps to save tasks and other things in a file.
+ * This class helps to save tasks and other things in a file.<br>
+ * The tasks saved while the program runs are written in report.dat by the {@link ReportJournal ReportJournal}.<br>
+ * The file can be compressed with gzip: in this case the compressed data is flushed every
+ * {@value #FLUSH_INTERVAL_LINES} lines, so a file that is still being written, or that was not closed, can be
+ * read until the last flush.<br>
+ * The number of lines written and the time needed by the flushes and by the closes are recorded in the
+ * {@link MetricsRegistry metrics}.
  * @author Patrich Tivoli
  */
 public class FileManager {
 
-    private FileWriter fileWriter;
+    /**
+     * The size of the buffers, both for the characters and for the compressed bytes.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * How many lines are written between two flushes of a compressed file.
+     */
+    private static final int FLUSH_INTERVAL_LINES = 10000;
+
+    private static final Counter WRITTEN_LINES = MetricsRegistry.counter("fileManager.writtenLines");
+    private static final Histogram FLUSH_LATENCY = MetricsRegistry.histogram("fileManager.flush");
+    private static final Histogram CLOSE_LATENCY = MetricsRegistry.histogram("fileManager.close");
+
+    private Writer fileWriter;
     private BufferedWriter bufferedWriter;
+    private char[] chars = new char[256];
+    private boolean compressed;
+    private int linesSinceFlush;
 
     /**
      * This constructor makes/opens a file called report.dat.
@@ -34,6 +63,26 @@ public class FileManager {
         initFileManager(fileName, append);
     }
 
+    /**
+     * This constructor makes a file compressed with gzip, if it exists it is replaced.
+     * @param fileName the name of the file
+     * @param compressionLevel the level of the compression, from 0 (no compression) to 9 (best compression)
+     *                         or -1 for the default level
+     * @throws IOException in case something goes wrong
+     * @see java.util.zip.Deflater
+     */
+    public FileManager(String fileName, int compressionLevel) throws IOException {
+        OutputStream file = new FileOutputStream(fileName);
+        try {
+            fileWriter = new OutputStreamWriter(new LeveledGZIPOutputStream(file, compressionLevel), Charset.defaultCharset());
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+        bufferedWriter = new BufferedWriter(fileWriter, BUFFER_SIZE);
+        compressed = true;
+    }
+
     /**
      * This method initialize the file manager by creating and or opening the file.
      * @param fileName the name of the file
@@ -42,42 +91,48 @@ public class FileManager {
      */
     private void initFileManager(String fileName, boolean append) throws IOException {
         fileWriter = new FileWriter(fileName, append);
-        bufferedWriter = new BufferedWriter(fileWriter);
+        bufferedWriter = new BufferedWriter(fileWriter, BUFFER_SIZE);
     }
 
     /**
-     * This method writes a task in a file.
-     * @param task the task that needs to be saved
+     * This method just writes a string on the file.
+     * @param text the text that need to be saved
      * @throws IOException in case something goes wrong
      */
-    private void saveTask(Task task) throws IOException {
-        this.write(task.toString());
+    public void write(String text) throws IOException {
+        bufferedWriter.write(text);
+        newLine();
     }
 
     /**
-     * This method aims to save a single task on a file called report.dat: it opens/creates the file,
-     * it saves the task and it closes it.<br>
-     * This method has to be used only to save a task in that file and it must not be used for bulk savings.
-     * @param task the task that needs to be saved
+     * This method writes the content of a builder on the file, followed by a new line.<br>
+     * The characters are copied in a buffer that is reused, so no string is made.
+     * @param text the text that need to be saved
+     * @throws IOException in case something goes wrong
      */
-    public static void saveTaskOnFile(Task task) {
-        try {
-            FileManager fileManager = new FileManager();
-            fileManager.saveTask(task);
-            fileManager.closeFileManager();
-        } catch (IOException e) {
-            throw new TimeTrackerException("There was a problem while saving the task on the file", e);
+    public void write(StringBuilder text) throws IOException {
+        int length = text.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
         }
+        text.getChars(0, length, chars, 0);
+        bufferedWriter.write(chars, 0, length);
+        newLine();
     }
 
     /**
-     * This method just writes a string on the file.
-     * @param text the text that need to be saved
+     * This method writes everything that is in the buffers on the file, if the file is compressed the
+     * data compressed until now can be read.
      * @throws IOException in case something goes wrong
      */
-    public void write(String text) throws IOException {
-        bufferedWriter.write(text);
-        bufferedWriter.newLine();
+    public void flush() throws IOException {
+        long start = System.nanoTime();
+        try {
+            bufferedWriter.flush();
+            linesSinceFlush = 0;
+        } finally {
+            FLUSH_LATENCY.recordSince(start);
+        }
     }
 
     /**
@@ -85,8 +140,40 @@ public class FileManager {
      * @throws IOException in case something goes wrong
      */
     public void closeFileManager() throws IOException {
-        bufferedWriter.close();
-        fileWriter.close();
+        long start = System.nanoTime();
+        try {
+            bufferedWriter.close();
+            fileWriter.close();
+        } finally {
+            CLOSE_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * This method ends a line and, if the file is compressed, it flushes the file every
+     * {@value #FLUSH_INTERVAL_LINES} lines.
+     * @throws IOException in case something goes wrong
+     */
+    private void newLine() throws IOException {
+        bufferedWriter.newLine();
+        WRITTEN_LINES.increment();
+        if (compressed && ++linesSinceFlush == FLUSH_INTERVAL_LINES) {
+            flush();
+        }
+    }
+
+    /**
+     * This class is a gzip stream with a chosen compression level, a large buffer and with the flush that
+     * writes all the data compressed until then.
+     * @see GZIPOutputStream#GZIPOutputStream(OutputStream, int, boolean)
+     */
+    private static class LeveledGZIPOutputStream extends GZIPOutputStream {
+
+        LeveledGZIPOutputStream(OutputStream out, int compressionLevel) throws IOException {
+            super(out, BUFFER_SIZE, true);
+            def.setLevel(compressionLevel);
+        }
+
     }
 
 }
@@ -1,31 +1,369 @@
 package controller.persistence;
 
 import controller.persistence.database.management.TaskDao;
+import exceptions.TimeTrackerException;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
 import model.Task;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 /**
  * This class, as the names suggests, is needed to save the tasks
  * in the database and in the file. Since it can be a heavy task and it's a task
- * that is not related to the UI, it is done by a Thread.
+ * that is not related to the UI, it is done by a Thread.<br>
+ * There is just one writer thread for the whole program: the tasks are put in a bounded queue and the
+ * writer takes all the tasks available in the queue and saves them together, with one append on the
+ * {@link ReportJournal journal} and one transaction on the database. If the queue is full, whoever saves
+ * a task waits until there is space again.<br>
+ * The journal is written first, so it is the source of truth: if the database cannot save a group, the group is
+ * tried again a few times and then its tasks are logged; they stay in the journal, which can be imported again
+ * with {@link TaskImporter TaskImporter} to fill the database.<br>
+ * The tasks are put in the queue while holding the read lock of the
+ * {@link PersistenceManager#shutdown(long) shutdown}, so once it is shut down every task given before is in the
+ * queue and it is saved, and every task given after is refused.<br>
+ * The statistics of the saves are kept in the {@link MetricsRegistry metrics}: the time every task waits from
+ * when it is given to {@link PersistenceManager#save(Task) save} to when it is saved, the time needed to save
+ * every group and the number of tasks waiting in the queue.
  * @author Patrich Tivoli
  */
-public class PersistenceManager implements Runnable{
+public class PersistenceManager implements Runnable {
+
+    /**
+     * The maximum number of tasks waiting to be saved.
+     */
+    private static final int QUEUE_CAPACITY = 256;
+    /**
+     * The maximum number of tasks saved together.
+     */
+    private static final int MAX_GROUP_SIZE = 64;
+    /**
+     * How often the writer checks if it has been shut down while the queue is empty, and how often whoever
+     * saves a task checks if the writer is still alive while the queue is full.
+     */
+    private static final long POLL_TIMEOUT_MILLIS = 200L;
+    /**
+     * How many times a group is given to the database before it is given up.
+     */
+    private static final int MAX_DATABASE_ATTEMPTS = 3;
+    /**
+     * How long the writer waits before giving a group to the database again.
+     */
+    private static final long RETRY_DELAY_MILLIS = 500L;
 
-    private Task task;
+    private static final Logger LOGGER = Logger.getLogger(PersistenceManager.class.getName());
 
-    public PersistenceManager(Task task) {
-        this.task = task;
+    private final BlockingQueue<PendingTask> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Consumer<TimeTrackerException> errorHandler;
+    private final Thread writer;
+    private final ReadWriteLock shutdownLock = new ReentrantReadWriteLock();
+    private ReportJournal journal;
+    private volatile boolean running;
+
+    private final Counter savedTasks = MetricsRegistry.counter("persistence.savedTasks");
+    private final Counter failedCommits = MetricsRegistry.counter("persistence.failedCommits");
+    private final Histogram commitLatency = MetricsRegistry.histogram("persistence.commit");
+    private final Histogram saveLatency = MetricsRegistry.histogram("persistence.save");
+    private final Histogram enqueueLatency = MetricsRegistry.histogram("persistence.enqueue");
+    private final AtomicLong lastCommitNanos = new AtomicLong();
+
+    /**
+     * This constructor makes the persistence manager, the writer thread is not started yet.
+     * @param errorHandler the handler of the errors that happen while saving the tasks,
+     *                     it is called by the writer thread
+     * @see PersistenceManager#start()
+     */
+    public PersistenceManager(Consumer<TimeTrackerException> errorHandler) {
+        this.errorHandler = errorHandler;
+        this.writer = new Thread(this, "persistence-writer");
+        MetricsRegistry.gauge("persistence.queueDepth", queue::size);
     }
 
     /**
-     * This method is needed to save the tasks in the database and in the file.
-     * @see FileManager
-     * @see TaskDao
+     * This method opens the journal called report.dat and starts the writer thread.
+     * @throws TimeTrackerException if the journal cannot be opened
+     * @see ReportJournal
+     */
+    public void start() {
+        try {
+            journal = new ReportJournal(Paths.get("report.dat"));
+        } catch (IOException e) {
+            throw new TimeTrackerException("There was a problem while opening the report file", e);
+        }
+        running = true;
+        writer.start();
+    }
+
+    /**
+     * This method puts a task in the queue of the tasks that need to be saved.<br>
+     * If the queue is full, this method waits until there is space.
+     * @param task the task that needs to be saved
+     * @throws TimeTrackerException if the persistence manager is shut down, the writer thread is stopped
+     * or the thread is interrupted
+     */
+    public void save(Task task) {
+        shutdownLock.readLock().lock();
+        try {
+            if (!running) {
+                throw new TimeTrackerException("The persistence manager is not running, the task cannot be saved");
+            }
+            long start = System.nanoTime();
+            PendingTask pendingTask = new PendingTask(task, start);
+            while (!queue.offer(pendingTask, POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (!writer.isAlive()) {
+                    throw new TimeTrackerException("The persistence writer is stopped, the task cannot be saved");
+                }
+            }
+            enqueueLatency.recordSince(start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TimeTrackerException("Interrupted while waiting to save the task", e);
+        } finally {
+            shutdownLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * This method is the loop of the writer thread: it waits for a task, then it takes all the other tasks
+     * already in the queue and it saves them together.<br>
+     * The loop ends when the persistence manager is shut down and the queue is empty, then the journal is closed.
      */
     @Override
     public void run() {
-        FileManager.saveTaskOnFile(task);
-        TaskDao.saveTask(task);
+        List<PendingTask> pending = new ArrayList<>(MAX_GROUP_SIZE);
+        List<Task> group = new ArrayList<>(MAX_GROUP_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingTask first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    pending.add(first);
+                    queue.drainTo(pending, MAX_GROUP_SIZE - 1);
+                    for (PendingTask pendingTask : pending) {
+                        group.add(pendingTask.task);
+                    }
+                    saveGroup(group);
+                    long now = System.nanoTime();
+                    for (PendingTask pendingTask : pending) {
+                        saveLatency.record(now - pendingTask.enqueuedNanos);
+                    }
+                    pending.clear();
+                    group.clear();
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+        }
+        closeJournal();
+    }
+
+    /**
+     * This method saves a group of tasks in the file and in the database and it updates the statistics.<br>
+     * The group is written in the journal first; if the database fails, the group is saved again up to
+     * {@value #MAX_DATABASE_ATTEMPTS} times, then the tasks are logged and they can be recovered by importing
+     * the journal. Every error is given to the error handler, so the writer thread keeps saving the next tasks.
+     * @param group the tasks that need to be saved
+     * @see ReportJournal
+     * @see TaskDao
+     * @see TaskImporter
+     */
+    private void saveGroup(List<Task> group) {
+        long start = System.nanoTime();
+        try {
+            appendToJournal(group);
+            saveToDatabase(group);
+            savedTasks.add(group.size());
+        } catch (TimeTrackerException e) {
+            failedCommits.increment();
+            errorHandler.accept(e);
+        } catch (RuntimeException e) {
+            failedCommits.increment();
+            errorHandler.accept(new TimeTrackerException("There was a problem while saving the tasks", e));
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            commitLatency.record(elapsed);
+            lastCommitNanos.set(elapsed);
+        }
+    }
+
+    /**
+     * This method saves a group of tasks, already in the journal, in the database. The transaction is rolled back
+     * when it fails, so the group can be saved again; after the last attempt the tasks are logged.
+     * @param group the tasks that need to be saved
+     * @throws TimeTrackerException if the database cannot save the tasks
+     */
+    private void saveToDatabase(List<Task> group) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                TaskDao.saveTasks(group);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt == MAX_DATABASE_ATTEMPTS || !waitBeforeRetry()) {
+                    logUnsavedTasks(group, e);
+                    throw e;
+                }
+                int failedAttempt = attempt;
+                LOGGER.warning(() -> "Attempt " + failedAttempt + " to save " + group.size()
+                        + " tasks in the database failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * This method waits before a group is given to the database again.
+     * @return true if the writer can try again, false if it was interrupted
+     */
+    private static boolean waitBeforeRetry() {
+        try {
+            Thread.sleep(RETRY_DELAY_MILLIS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * This method logs the tasks that are in the journal but not in the database, so they can be found in the
+     * journal and imported again.
+     * @param group the tasks that could not be saved
+     * @param cause the error of the database
+     */
+    private static void logUnsavedTasks(List<Task> group, RuntimeException cause) {
+        StringBuilder message = new StringBuilder("The database could not save ").append(group.size())
+                .append(" tasks, they are only in the journal and they can be imported again:");
+        for (Task task : group) {
+            message.append(System.lineSeparator()).append(task);
+        }
+        LOGGER.log(Level.SEVERE, message.toString(), cause);
+    }
+
+    /**
+     * This method appends a group of tasks to the journal.
+     * @param group the tasks that need to be saved
+     * @throws TimeTrackerException if the tasks cannot be written
+     */
+    private void appendToJournal(List<Task> group) {
+        try {
+            journal.append(group);
+        } catch (IOException e) {
+            throw new TimeTrackerException("There was a problem while saving the task on the file", e);
+        }
+    }
+
+    /**
+     * This method closes the journal, the errors are given to the error handler.
+     */
+    private void closeJournal() {
+        try {
+            journal.close();
+        } catch (IOException e) {
+            errorHandler.accept(new TimeTrackerException("There was a problem while closing the report file", e));
+        }
+    }
+
+    /**
+     * This method stops accepting new tasks and waits until all the tasks in the queue are saved.<br>
+     * The tasks that are being put in the queue are waited for, so they are saved too.
+     * @param timeoutMillis the maximum number of milliseconds to wait
+     * @return true if all the tasks are saved, false if the timeout expired
+     */
+    public boolean shutdown(long timeoutMillis) {
+        shutdownLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            shutdownLock.writeLock().unlock();
+        }
+        try {
+            writer.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !writer.isAlive() && queue.isEmpty();
+    }
+
+    /**
+     * This method returns the number of tasks waiting to be saved.
+     * @return the depth of the queue
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * This method returns the number of tasks saved since the start.
+     * @return the number of saved tasks
+     */
+    public long getSavedTasks() {
+        return savedTasks.getCount();
+    }
+
+    /**
+     * This method returns the number of groups written since the start, failed ones included.
+     * @return the number of commits
+     */
+    public long getCommits() {
+        return commitLatency.getCount();
+    }
+
+    /**
+     * This method returns the number of groups that could not be saved.
+     * @return the number of failed commits
+     */
+    public long getFailedCommits() {
+        return failedCommits.getCount();
+    }
+
+    /**
+     * This method returns how long it took to save the last group.
+     * @return the latency of the last commit in microseconds
+     */
+    public long getLastCommitLatencyMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(lastCommitNanos.get());
+    }
+
+    /**
+     * This method returns the average time needed to save a group.
+     * @return the average latency of the commits in microseconds, 0 if nothing is saved yet
+     */
+    public long getAverageCommitLatencyMicros() {
+        return commitLatency.getMeanMicros();
+    }
+
+    /**
+     * This method returns the longest time needed to save a group.
+     * @return the maximum latency of the commits in microseconds
+     */
+    public long getMaxCommitLatencyMicros() {
+        return commitLatency.getMaxMicros();
+    }
+
+    /**
+     * This class is a task waiting in the queue, with the moment it was given to the persistence manager.
+     */
+    private static class PendingTask {
+
+        private final Task task;
+        private final long enqueuedNanos;
+
+        PendingTask(Task task, long enqueuedNanos) {
+            this.task = task;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
     }
 
 }
@@ -0,0 +1,419 @@
+package controller.persistence;
+
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import model.FancyFormatter;
+import model.Task;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * This class is an append-only journal of the saved tasks, it is the file called report.dat.<br>
+ * The file is opened once and it stays opened until the journal is closed. Every task is a record made of
+ * a single line: the {@link Task#toString() text of the task} followed by a tab and its checksum
+ * (e.g. <code>CRC: 1a2b3c4d</code>), so the file can still be read as a text file.<br>
+ * When the journal is opened, the end of the file is checked: an incomplete line or a line with a wrong
+ * checksum, left by a crash in the middle of a write, is removed. Lines without the checksum, written before
+ * the journal was introduced, are always considered valid.<br>
+ * The time needed to append the records and to force them on the disk is recorded in the
+ * {@link MetricsRegistry metrics}.
+ * @author Patrich Tivoli
+ */
+public class ReportJournal implements Closeable {
+
+    /**
+     * This enum represents when the journal forces the written data on the disk.
+     */
+    public enum Durability {
+        /**
+         * The data is forced on the disk after every record.
+         */
+        RECORD,
+        /**
+         * The data is forced on the disk after every group of records.
+         */
+        GROUP,
+        /**
+         * The data is forced on the disk periodically by a background thread.
+         */
+        INTERVAL
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(ReportJournal.class.getName());
+    private static final Histogram APPEND_LATENCY = MetricsRegistry.histogram("journal.append");
+    private static final Histogram SYNC_LATENCY = MetricsRegistry.histogram("journal.sync");
+    private static final Counter WRITTEN_BYTES = MetricsRegistry.counter("journal.writtenBytes");
+
+    /**
+     * The name of the system property used to choose the {@link Durability durability}.
+     */
+    public static final String DURABILITY_PROPERTY = "timeTracker.journal.durability";
+    /**
+     * The name of the system property used to choose how often, in milliseconds, the data is forced on the
+     * disk when the durability is {@link Durability#INTERVAL INTERVAL}.
+     */
+    public static final String SYNC_INTERVAL_PROPERTY = "timeTracker.journal.syncInterval";
+
+    private static final String CHECKSUM_SEPARATOR = "\tCRC: ";
+    private static final int CHECKSUM_LENGTH = 8;
+    private static final byte NEW_LINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    /**
+     * The number of bytes at the end of the file that are checked while opening the journal.
+     */
+    private static final int TAIL_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final Durability durability;
+    private final Charset charset = Charset.defaultCharset();
+    private final byte[] lineSeparator = System.lineSeparator().getBytes(charset);
+    private final CharsetEncoder encoder = charset.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CRC32 crc = new CRC32();
+    private final FancyFormatter formatter = new FancyFormatter();
+    private final StringBuilder line = new StringBuilder(128);
+    private final ScheduledExecutorService syncExecutor;
+    private ByteBuffer buffer = ByteBuffer.allocate(8 * 1024);
+    private boolean dirty;
+
+    /**
+     * This constructor opens the journal with the durability and the interval taken from the system properties,
+     * by default the data is forced on the disk after every group of records.
+     * The durability is case-insensitive, an unknown one is logged and the default one is used.
+     * @param path the path of the file
+     * @throws IOException in case something goes wrong
+     * @see ReportJournal#DURABILITY_PROPERTY
+     * @see ReportJournal#SYNC_INTERVAL_PROPERTY
+     */
+    public ReportJournal(Path path) throws IOException {
+        this(path,
+                getDurability(),
+                Long.getLong(SYNC_INTERVAL_PROPERTY, 1000L));
+    }
+
+    /**
+     * This method returns the durability chosen with the system property
+     * {@link ReportJournal#DURABILITY_PROPERTY DURABILITY_PROPERTY}.
+     * @return the durability, {@link Durability#GROUP GROUP} if it is not set or it is unknown
+     */
+    private static Durability getDurability() {
+        String durability = System.getProperty(DURABILITY_PROPERTY);
+        if (durability == null) {
+            return Durability.GROUP;
+        }
+        try {
+            return Durability.valueOf(durability.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Unknown journal durability {0}, it must be RECORD, GROUP or INTERVAL: "
+                    + "GROUP is used", durability);
+            return Durability.GROUP;
+        }
+    }
+
+    /**
+     * This constructor opens the journal, the end of the file is checked and repaired if needed.
+     * @param path the path of the file
+     * @param durability when the data is forced on the disk
+     * @param syncIntervalMillis how often the data is forced on the disk, used only with
+     *                           {@link Durability#INTERVAL INTERVAL}
+     * @throws IOException in case something goes wrong
+     */
+    public ReportJournal(Path path, Durability durability, long syncIntervalMillis) throws IOException {
+        this.durability = durability;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            truncateTornTail();
+            channel.position(channel.size());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        if (durability == Durability.INTERVAL) {
+            syncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncExecutor.scheduleWithFixedDelay(this::syncQuietly, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            syncExecutor = null;
+        }
+    }
+
+    /**
+     * This method appends a group of tasks to the journal.
+     * @param tasks the tasks that need to be saved
+     * @throws IOException in case something goes wrong
+     */
+    public synchronized void append(Collection<Task> tasks) throws IOException {
+        long start = System.nanoTime();
+        try {
+            buffer.clear();
+            for (Task task : tasks) {
+                encodeRecord(task);
+                if (durability == Durability.RECORD) {
+                    writeBuffer();
+                    force();
+                    buffer.clear();
+                }
+            }
+            if (durability != Durability.RECORD) {
+                writeBuffer();
+                dirty = true;
+                if (durability == Durability.GROUP) {
+                    sync();
+                }
+            }
+        } finally {
+            APPEND_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * This method forces on the disk all the data written so far.
+     * @throws IOException in case something goes wrong
+     */
+    public synchronized void sync() throws IOException {
+        if (dirty) {
+            force();
+            dirty = false;
+        }
+    }
+
+    /**
+     * This method forces on the disk the data of the file, without its metadata.
+     * @throws IOException in case something goes wrong
+     */
+    private void force() throws IOException {
+        long start = System.nanoTime();
+        try {
+            channel.force(false);
+        } finally {
+            SYNC_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * This method forces the data on the disk, it is used by the background thread so the errors are just logged.
+     */
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "There was a problem while forcing the journal on the disk", e);
+        }
+    }
+
+    /**
+     * This method forces the data on the disk and closes the file.
+     * @throws IOException in case something goes wrong
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (syncExecutor != null) {
+            syncExecutor.shutdownNow();
+        }
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * This method writes a record in the buffer: the text of the task on one line, the line breaks in the
+     * name of the task are replaced by spaces, followed by its checksum.<br>
+     * The text is made in a builder that is reused and it is encoded directly in the buffer, the checksum
+     * is computed on the encoded bytes.
+     * @param task the task
+     */
+    private void encodeRecord(Task task) {
+        line.setLength(0);
+        task.appendTo(line, formatter);
+        for (int i = 0; i < line.length(); i++) {
+            char character = line.charAt(i);
+            if (character == '\r' || character == '\n') {
+                line.setCharAt(i, ' ');
+            }
+        }
+        int recordStart = buffer.position();
+        encode(line);
+        crc.reset();
+        crc.update(buffer.array(), buffer.arrayOffset() + recordStart, buffer.position() - recordStart);
+        line.setLength(0);
+        line.append(CHECKSUM_SEPARATOR);
+        appendHex(line, crc.getValue());
+        encode(line);
+        ensureCapacity(lineSeparator.length);
+        buffer.put(lineSeparator);
+    }
+
+    /**
+     * This method encodes some text at the end of the buffer, the buffer is made bigger if needed.
+     * @param text the text
+     */
+    private void encode(CharSequence text) {
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        CoderResult result = encoder.encode(chars, buffer, true);
+        while (result.isOverflow()) {
+            ensureCapacity(buffer.capacity());
+            result = encoder.encode(chars, buffer, true);
+        }
+        result = encoder.flush(buffer);
+        while (result.isOverflow()) {
+            ensureCapacity(buffer.capacity());
+            result = encoder.flush(buffer);
+        }
+    }
+
+    /**
+     * This method makes the buffer bigger if there is not enough space left.
+     * @param needed the number of bytes that need to be written
+     */
+    private void ensureCapacity(int needed) {
+        if (buffer.remaining() < needed) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+            buffer.flip();
+            bigger.put(buffer);
+            buffer = bigger;
+        }
+    }
+
+    /**
+     * This method writes the content of the buffer at the end of the file.
+     * @throws IOException in case something goes wrong
+     */
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        WRITTEN_BYTES.add(buffer.remaining());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * This method removes from the end of the file the incomplete line and the lines with a wrong checksum.
+     * @throws IOException in case something goes wrong
+     */
+    private void truncateTornTail() throws IOException {
+        long size = channel.size();
+        int tailLength = (int) Math.min(size, TAIL_SIZE);
+        if (tailLength == 0) {
+            return;
+        }
+        long tailStart = size - tailLength;
+        ByteBuffer tail = ByteBuffer.allocate(tailLength);
+        while (tail.hasRemaining() && channel.read(tail, tailStart + tail.position()) >= 0) {
+            // keep reading until the tail is complete
+        }
+        byte[] bytes = tail.array();
+        int validEnd = tailLength;
+        if (bytes[validEnd - 1] != NEW_LINE) {
+            validEnd = lastIndexOfNewLine(bytes, validEnd - 1) + 1;
+        }
+        while (validEnd > 0) {
+            int lineStart = lastIndexOfNewLine(bytes, validEnd - 2) + 1;
+            if ((lineStart == 0 && tailStart > 0) || isValidLine(bytes, lineStart, validEnd - 1)) {
+                break;
+            }
+            validEnd = lineStart;
+        }
+        if (tailStart + validEnd < size) {
+            LOGGER.log(Level.WARNING, "Removed {0} bytes of incomplete records from the end of the journal",
+                    size - tailStart - validEnd);
+            channel.truncate(tailStart + validEnd);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * This method checks a line of the file: a line without checksum is valid, otherwise
+     * the checksum must match.
+     * @param bytes the bytes that contain the line
+     * @param start the index of the first byte of the line
+     * @param end the index of the new line character at the end of the line, a carriage return before it is ignored
+     * @return true if the line is valid, false otherwise
+     */
+    private boolean isValidLine(byte[] bytes, int start, int end) {
+        if (end > start && bytes[end - 1] == CARRIAGE_RETURN) {
+            end--;
+        }
+        String line = new String(bytes, start, end - start, charset);
+        int separator = line.lastIndexOf(CHECKSUM_SEPARATOR);
+        if (separator < 0 || line.length() - separator - CHECKSUM_SEPARATOR.length() != CHECKSUM_LENGTH) {
+            return true;
+        }
+        return getChecksum(line.substring(0, separator)).equals(line.substring(separator + CHECKSUM_SEPARATOR.length()));
+    }
+
+    /**
+     * This method computes the checksum of a record, the text of a task without the checksum, as it is
+     * written in the journal.
+     * @param record the record
+     * @return the checksum as 8 hexadecimal characters
+     */
+    static String getChecksum(String record) {
+        byte[] bytes = record.getBytes(Charset.defaultCharset());
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes, 0, bytes.length);
+        return toHex(checksum.getValue());
+    }
+
+    /**
+     * This method finds the last new line character at or before an index.
+     * @param bytes the bytes in which the new line is searched
+     * @param from the index where the search starts
+     * @return the index of the new line, -1 if there is not
+     */
+    private static int lastIndexOfNewLine(byte[] bytes, int from) {
+        for (int i = from; i >= 0; i--) {
+            if (bytes[i] == NEW_LINE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * This method appends a checksum to a builder as 8 hexadecimal characters.
+     * @param builder the builder
+     * @param value the checksum
+     */
+    private static void appendHex(StringBuilder builder, long value) {
+        for (int shift = (CHECKSUM_LENGTH - 1) * 4; shift >= 0; shift -= 4) {
+            builder.append(Character.forDigit((int) (value >>> shift) & 0xF, 16));
+        }
+    }
+
+    /**
+     * This method converts a checksum in a string of 8 hexadecimal characters.
+     * @param value the checksum
+     * @return the hexadecimal string
+     */
+    private static String toHex(long value) {
+        String hex = Long.toHexString(value);
+        return "00000000".substring(hex.length()) + hex;
+    }
+
+}
@@ -0,0 +1,366 @@
+package controller.persistence;
+
+import controller.persistence.database.management.TaskDao;
+import exceptions.TimeTrackerException;
+import model.Task;
+import model.TimeUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * This class imports many tasks at once from text files in the database.<br>
+ * Two formats are read, even mixed in the same file:
+ * <ul>
+ *     <li>The format of report.dat and export.dat, the one of {@link Task#toString()}, e.g.
+ *     <code>Task: name&#9;Start: 2023/01/05 09:00:00&#9;End: 2023/01/05 10:00:00&#9;Delta: 01:00:00</code>;
+ *     the checksum written by the {@link ReportJournal journal} at the end of the line is checked and the lines
+ *     with a wrong checksum are skipped</li>
+ *     <li>CSV with the columns START_TIME, END_TIME, TASK_NAME and DURATION: the dates and times are written
+ *     as YYYY/MM/DD HH:mm:ss or as ISO-8601, the duration as HH:mm:ss or as a number of milliseconds
+ *     (if it is empty, it is computed from the start and the end); the header line is skipped</li>
+ * </ul>
+ * The file is read by the calling thread in chunks of lines, the chunks are parsed by a pool of threads and the
+ * tasks are saved in the order of the file with large transactions, so a task that starts at the same date and
+ * time of another one replaces it; since the files have only whole seconds, a saved task with the same name that
+ * starts in the same second is replaced too, so the journal can be imported again without duplicates.
+ * The lines that cannot be read are skipped and counted.<br>
+ * The daily totals are not updated, they have to be rebuilt when all the files are imported.
+ * @author Patrich Tivoli
+ * @see TaskDao#mergeTasks(java.util.Collection)
+ */
+public class TaskImporter {
+
+    private static final Logger LOGGER = Logger.getLogger(TaskImporter.class.getName());
+
+    /**
+     * The number of lines parsed together by a thread.
+     */
+    private static final int CHUNK_SIZE = 10000;
+    /**
+     * The number of tasks saved with a single transaction.
+     */
+    private static final int TRANSACTION_SIZE = 100000;
+    /**
+     * The maximum number of rejected lines that are logged for every file.
+     */
+    private static final int MAX_LOGGED_REJECTIONS = 20;
+    /**
+     * The maximum length of the name of a task in the database.
+     */
+    private static final int MAX_TASK_NAME_LENGTH = 255;
+
+    private static final String TASK_PREFIX = "Task: ";
+    private static final String START_SEPARATOR = "\tStart: ";
+    private static final String END_SEPARATOR = "\tEnd: ";
+    private static final String DELTA_SEPARATOR = "\tDelta: ";
+    private static final String CHECKSUM_SEPARATOR = "\tCRC: ";
+    private static final String CSV_HEADER = "START_TIME";
+
+    private final int threads;
+    private final ExecutorService parsers;
+    private final List<Task> transaction = new ArrayList<>();
+    private long readLines;
+    private long importedTasks;
+    private long rejectedLines;
+
+    /**
+     * This constructor makes the importer with its pool of threads.
+     * @param threads the number of threads that parse the lines
+     */
+    public TaskImporter(int threads) {
+        this.threads = threads;
+        this.parsers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "import-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * This method imports all the tasks of a file, when it ends all the tasks are saved.<br>
+     * Only a few chunks are parsed at the same time, so the memory used does not depend on the size of the file.
+     * @param path the file
+     * @throws IOException if the file cannot be read
+     * @throws TimeTrackerException if the tasks cannot be saved
+     */
+    public void importFile(Path path) throws IOException {
+        Deque<Future<ParsedChunk>> parsing = new ArrayDeque<>();
+        AtomicInteger loggedRejections = new AtomicInteger();
+        try (BufferedReader reader = Files.newBufferedReader(path, Charset.defaultCharset())) {
+            List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+            long firstLine = readLines + 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                chunk.add(line);
+                readLines++;
+                if (chunk.size() == CHUNK_SIZE) {
+                    parsing.add(submit(path, chunk, firstLine, loggedRejections));
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                    firstLine = readLines + 1;
+                    if (parsing.size() > threads * 2) {
+                        save(parsing.remove());
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                parsing.add(submit(path, chunk, firstLine, loggedRejections));
+            }
+            while (!parsing.isEmpty()) {
+                save(parsing.remove());
+            }
+            commit();
+        } finally {
+            for (Future<ParsedChunk> future : parsing) {
+                future.cancel(true);
+            }
+            transaction.clear();
+        }
+    }
+
+    /**
+     * This method stops the threads that parse the lines.
+     */
+    public void close() {
+        parsers.shutdownNow();
+    }
+
+    public long getReadLines() {
+        return readLines;
+    }
+
+    public long getImportedTasks() {
+        return importedTasks;
+    }
+
+    public long getRejectedLines() {
+        return rejectedLines;
+    }
+
+    /**
+     * This method gives a chunk of lines to the threads that parse them.
+     * @param path the file, used to log the lines that cannot be read
+     * @param lines the lines
+     * @param firstLine the number of the first line in the file
+     * @param loggedRejections how many rejected lines of the file are already logged
+     * @return the parsed chunk, when it is ready
+     */
+    private Future<ParsedChunk> submit(Path path, List<String> lines, long firstLine, AtomicInteger loggedRejections) {
+        return parsers.submit(() -> {
+            ParsedChunk parsedChunk = new ParsedChunk(lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                try {
+                    Task task = parseLine(lines.get(i));
+                    if (task != null) {
+                        parsedChunk.tasks.add(task);
+                    }
+                } catch (TimeTrackerException e) {
+                    parsedChunk.rejectedLines++;
+                    if (loggedRejections.getAndIncrement() < MAX_LOGGED_REJECTIONS) {
+                        long lineNumber = firstLine + i;
+                        LOGGER.warning(() -> path + ":" + lineNumber + " skipped: " + e.getMessage());
+                    }
+                }
+            }
+            return parsedChunk;
+        });
+    }
+
+    /**
+     * This method waits for a chunk to be parsed and adds its tasks to the transaction, if the transaction is
+     * big enough, it is saved.
+     * @param future the parsed chunk
+     * @throws TimeTrackerException if the chunk could not be parsed or the tasks cannot be saved
+     */
+    private void save(Future<ParsedChunk> future) {
+        ParsedChunk parsedChunk;
+        try {
+            parsedChunk = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TimeTrackerException("The import was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new TimeTrackerException("There was a problem while reading the tasks", e.getCause());
+        }
+        rejectedLines += parsedChunk.rejectedLines;
+        transaction.addAll(parsedChunk.tasks);
+        if (transaction.size() >= TRANSACTION_SIZE) {
+            commit();
+        }
+    }
+
+    /**
+     * This method saves the tasks of the transaction.
+     * @see TaskDao#mergeTasks(java.util.Collection)
+     */
+    private void commit() {
+        TaskDao.mergeTasks(transaction);
+        importedTasks += transaction.size();
+        transaction.clear();
+    }
+
+    /**
+     * This method reads a task from a line, in the format of {@link Task#toString()} or CSV.
+     * @param line the line
+     * @return the task, null if the line is empty or it is the header of a CSV file
+     * @throws TimeTrackerException if the line cannot be read
+     */
+    static Task parseLine(String line) {
+        if (line.trim().isEmpty() || line.regionMatches(true, 0, CSV_HEADER, 0, CSV_HEADER.length())) {
+            return null;
+        }
+        return line.startsWith(TASK_PREFIX) ? parseTextLine(line) : parseCsvLine(line);
+    }
+
+    /**
+     * This method reads a task from a line in the format of {@link Task#toString()}, with or without the
+     * checksum of the journal: if there is the checksum, it must match. The name of the task can contain tabs.
+     * @param line the line
+     * @return the task
+     * @throws TimeTrackerException if the line cannot be read or its checksum is wrong
+     * @see ReportJournal
+     */
+    private static Task parseTextLine(String line) {
+        int checksum = line.lastIndexOf(CHECKSUM_SEPARATOR);
+        int lineEnd = checksum < 0 ? line.length() : checksum;
+        if (checksum >= 0 && !ReportJournal.getChecksum(line.substring(0, checksum))
+                .equals(line.substring(checksum + CHECKSUM_SEPARATOR.length()))) {
+            throw new TimeTrackerException("The checksum of the line is wrong");
+        }
+        int start = line.lastIndexOf(START_SEPARATOR, lineEnd);
+        int end = start < 0 ? -1 : line.indexOf(END_SEPARATOR, start);
+        int delta = end < 0 ? -1 : line.indexOf(DELTA_SEPARATOR, end);
+        if (delta < 0 || delta > lineEnd) {
+            throw new TimeTrackerException("The line is not a task");
+        }
+        Task task = new Task(checkTaskName(line.substring(TASK_PREFIX.length(), start)));
+        task.setStartTime(TimeUtils.parseFancyDateTime(line.substring(start + START_SEPARATOR.length(), end)));
+        task.setEndTime(TimeUtils.parseFancyDateTime(line.substring(end + END_SEPARATOR.length(), delta)));
+        task.setDelta(line.substring(delta + DELTA_SEPARATOR.length(), lineEnd));
+        return task;
+    }
+
+    /**
+     * This method reads a task from a CSV line: START_TIME, END_TIME, TASK_NAME, DURATION.
+     * @param line the line
+     * @return the task
+     * @throws TimeTrackerException if the line cannot be read
+     */
+    private static Task parseCsvLine(String line) {
+        List<String> fields = splitCsvLine(line);
+        if (fields.size() != 4) {
+            throw new TimeTrackerException("The line has " + fields.size() + " columns instead of 4");
+        }
+        Task task = new Task(checkTaskName(fields.get(2)));
+        task.setStartTime(parseDateTime(fields.get(0).trim()));
+        task.setEndTime(parseDateTime(fields.get(1).trim()));
+        String duration = fields.get(3).trim();
+        if (duration.isEmpty()) {
+            task.setDuration(Duration.between(task.getStartTime(), task.getEndTime()).toMillis());
+        } else if (duration.indexOf(':') >= 0) {
+            task.setDelta(duration);
+        } else {
+            try {
+                task.setDuration(Long.parseLong(duration));
+            } catch (NumberFormatException e) {
+                throw new TimeTrackerException("The duration " + duration + " is not a number of milliseconds", e);
+            }
+        }
+        return task;
+    }
+
+    /**
+     * This method splits a CSV line in its fields. A field can be quoted, in this case it can contain commas and
+     * a quote is written as two quotes.
+     * @param line the line
+     * @return the fields
+     */
+    private static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append(c);
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * This method reads a date and time written as YYYY/MM/DD HH:mm:ss or as ISO-8601.
+     * @param dateTime the date and time
+     * @return the date and time
+     * @throws TimeTrackerException if the date and time cannot be read
+     */
+    private static LocalDateTime parseDateTime(String dateTime) {
+        if (dateTime.length() == 19 && dateTime.charAt(4) == '/') {
+            return TimeUtils.parseFancyDateTime(dateTime);
+        }
+        try {
+            return LocalDateTime.parse(dateTime);
+        } catch (DateTimeParseException e) {
+            throw new TimeTrackerException("The date and time " + dateTime + " cannot be read", e);
+        }
+    }
+
+    /**
+     * This method checks that the name of a task can be saved in the database.
+     * @param taskName the name of the task
+     * @return the name of the task
+     * @throws TimeTrackerException if the name is empty or too long
+     */
+    private static String checkTaskName(String taskName) {
+        if (taskName.isEmpty() || taskName.length() > MAX_TASK_NAME_LENGTH) {
+            throw new TimeTrackerException("The name of the task must have from 1 to " + MAX_TASK_NAME_LENGTH + " characters");
+        }
+        return taskName;
+    }
+
+    /**
+     * This class contains the tasks read from a chunk of lines.
+     */
+    private static class ParsedChunk {
+
+        private final List<Task> tasks;
+        private int rejectedLines;
+
+        ParsedChunk(int lines) {
+            this.tasks = new ArrayList<>(lines);
+        }
+
+    }
+
+}
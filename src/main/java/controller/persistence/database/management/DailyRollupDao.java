@@ -0,0 +1,212 @@
+package controller.persistence.database.management;
+
+import exceptions.TimeTrackerException;
+import model.ReportType;
+import model.Task;
+import model.TaskSummary;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is a Data Access Object for the DAILY_ROLLUP table, the table with the total duration and the
+ * number of tasks of every day and task name.<br>
+ * The table is updated in the same transaction in which the tasks are saved, so the totals of a long period
+ * can be computed by reading a row for every day instead of a row for every task.
+ * The tasks are assigned to the day in which they start. For every day and task name, the table also keeps
+ * when the last task ends, so a range that ends in the middle of a task can use only the daily totals of the
+ * days whose tasks all end within it.
+ * @author Patrich Tivoli
+ * @see TaskDao
+ */
+public class DailyRollupDao {
+
+    private static final String MERGE_TOTAL = "MERGE INTO DAILY_ROLLUP R USING ( VALUES ( CAST(? AS DATE), CAST(? AS INT), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS TIMESTAMP) ) ) AS S ( START_DAY, TASK_NAME_ID, TOTAL, SEGMENTS, LAST_END_TIME ) ON R.START_DAY = S.START_DAY AND R.TASK_NAME_ID = S.TASK_NAME_ID WHEN MATCHED THEN UPDATE SET TOTAL = R.TOTAL + S.TOTAL, SEGMENTS = R.SEGMENTS + S.SEGMENTS, LAST_END_TIME = GREATEST(R.LAST_END_TIME, S.LAST_END_TIME) WHEN NOT MATCHED THEN INSERT ( START_DAY, TASK_NAME_ID, TOTAL, SEGMENTS, LAST_END_TIME ) VALUES ( S.START_DAY, S.TASK_NAME_ID, S.TOTAL, S.SEGMENTS, S.LAST_END_TIME )";
+    private static final String DELETE_ROWS = "DELETE FROM DAILY_ROLLUP";
+    private static final String FILL_TABLE = "INSERT INTO DAILY_ROLLUP ( START_DAY, TASK_NAME_ID, TOTAL, SEGMENTS, LAST_END_TIME ) SELECT CAST(START_TIME AS DATE), TASK_NAME_ID, SUM(DURATION), COUNT(*), MAX(END_TIME) FROM TIME_TRACKER GROUP BY CAST(START_TIME AS DATE), TASK_NAME_ID";
+    private static final String SELECT_SUMMARY = "SELECT %s AS SUMMARY_GROUP, SUM(TOTAL) AS TOTAL, SUM(SEGMENTS) AS SEGMENTS FROM DAILY_ROLLUP WHERE 1 = 1";
+    private static final String SELECT_SUMMARY_BY_TASK_NAME = "SELECT N.NAME AS SUMMARY_GROUP, S.TOTAL, S.SEGMENTS FROM ( SELECT TASK_NAME_ID, SUM(TOTAL) AS TOTAL, SUM(SEGMENTS) AS SEGMENTS FROM DAILY_ROLLUP WHERE 1 = 1";
+    private static final String GROUP_BY_TASK_NAME_SUMMARY = " GROUP BY TASK_NAME_ID ) S JOIN TASK_NAMES N ON N.ID = S.TASK_NAME_ID ORDER BY SUMMARY_GROUP";
+    private static final String AND_START_DAY_FROM = " AND START_DAY >= ?";
+    private static final String AND_START_DAY_BEFORE = " AND START_DAY < ?";
+    private static final String GROUP_BY_SUMMARY = " GROUP BY SUMMARY_GROUP ORDER BY SUMMARY_GROUP";
+    private static final String AND_START_DAY_NOT_IN = " AND START_DAY NOT IN ( ?";
+    private static final String SELECT_DAYS_ENDING_AFTER = "SELECT DISTINCT START_DAY FROM DAILY_ROLLUP USE INDEX ( IDX_DAILY_ROLLUP_LAST_END_TIME ) WHERE LAST_END_TIME > ?";
+    private static final String ORDER_BY_START_DAY = " ORDER BY START_DAY";
+
+    /**
+     * Private Constructor to hide the default one.
+     */
+    private DailyRollupDao() { }
+
+    /**
+     * This method adds some tasks to the daily totals.<br>
+     * It does not commit, it has to be called in the same transaction in which the tasks are saved.
+     * The tasks are first added up in memory, so there is a single update for every day and task name.
+     * @param connection the connection with the transaction in which the tasks are saved
+     * @param tasks the saved tasks
+     * @param taskNameIds the id of the name of every task
+     * @throws SQLException in case something goes wrong
+     */
+    static void addTasks(Connection connection, Collection<Task> tasks, Map<String, Integer> taskNameIds) throws SQLException {
+        Map<LocalDate, Map<Integer, DailyTotal>> totals = new LinkedHashMap<>();
+        for (Task task : tasks) {
+            totals.computeIfAbsent(task.getStartTime().toLocalDate(), day -> new LinkedHashMap<>())
+                    .computeIfAbsent(taskNameIds.get(task.getTaskName()), id -> new DailyTotal())
+                    .add(task);
+        }
+        try (PreparedStatement statement = connection.prepareStatement(MERGE_TOTAL)) {
+            for (Map.Entry<LocalDate, Map<Integer, DailyTotal>> day : totals.entrySet()) {
+                for (Map.Entry<Integer, DailyTotal> taskName : day.getValue().entrySet()) {
+                    statement.setObject(1, day.getKey());
+                    statement.setInt(2, taskName.getKey());
+                    statement.setLong(3, taskName.getValue().totalMillis);
+                    statement.setLong(4, taskName.getValue().segments);
+                    statement.setObject(5, taskName.getValue().lastEndTime);
+                    statement.addBatch();
+                }
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * This method computes again all the daily totals from the saved tasks, in a single transaction.<br>
+     * It is useful when the tasks are changed without using {@link TaskDao TaskDao}.
+     * @return the number of rows of the daily totals
+     */
+    public static int rebuild() {
+        try (Connection connection = DatabaseManager.getDatabaseConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate(DELETE_ROWS);
+                int rows = statement.executeUpdate(FILL_TABLE);
+                connection.commit();
+                return rows;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new TimeTrackerException("There was a problem while rebuilding the daily totals", e);
+        }
+    }
+
+    /**
+     * This method finds the days of a range in which a task starts and ends after a date and time.
+     * @param from the first day of the range, null for no limit
+     * @param before the day after the last day of the range
+     * @param endTime the date and time after which the tasks end
+     * @return the days, sorted
+     */
+    static List<LocalDate> getDaysEndingAfter(LocalDate from, LocalDate before, LocalDateTime endTime) {
+        StringBuilder sql = new StringBuilder(SELECT_DAYS_ENDING_AFTER);
+        if (from != null) {
+            sql.append(AND_START_DAY_FROM);
+        }
+        sql.append(AND_START_DAY_BEFORE).append(ORDER_BY_START_DAY);
+        List<LocalDate> days = new ArrayList<>();
+        try (Connection connection = DatabaseManager.getDatabaseConnection();
+             PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            statement.setObject(index++, endTime);
+            if (from != null) {
+                statement.setObject(index++, from);
+            }
+            statement.setObject(index, before);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    days.add(resultSet.getObject(1, LocalDate.class));
+                }
+            }
+        } catch (SQLException e) {
+            throw new TimeTrackerException("There was a problem while retrieving the daily totals from the database", e);
+        }
+        return days;
+    }
+
+    /**
+     * This method computes the total time spent on the tasks of a range of days, grouped by task name,
+     * day, ISO week or month.
+     * @param from the first day of the range, null for no limit
+     * @param before the day after the last day of the range, null for no limit
+     * @param excludedDays the days of the range that are not counted
+     * @param reportType how the tasks are grouped
+     * @return a summary for every group, sorted by group
+     */
+    static List<TaskSummary> getSummary(LocalDate from, LocalDate before, List<LocalDate> excludedDays, ReportType reportType) {
+        boolean byTaskName = reportType == ReportType.TASK_NAME;
+        StringBuilder sql = new StringBuilder(byTaskName ? SELECT_SUMMARY_BY_TASK_NAME
+                : String.format(SELECT_SUMMARY, TaskDao.getGroupExpression(reportType, "START_DAY")));
+        if (from != null) {
+            sql.append(AND_START_DAY_FROM);
+        }
+        if (before != null) {
+            sql.append(AND_START_DAY_BEFORE);
+        }
+        if (!excludedDays.isEmpty()) {
+            sql.append(AND_START_DAY_NOT_IN);
+            for (int i = 1; i < excludedDays.size(); i++) {
+                sql.append(", ?");
+            }
+            sql.append(" )");
+        }
+        sql.append(byTaskName ? GROUP_BY_TASK_NAME_SUMMARY : GROUP_BY_SUMMARY);
+        List<TaskSummary> summaries = new ArrayList<>();
+        try (Connection connection = DatabaseManager.getDatabaseConnection();
+             PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            if (from != null) {
+                statement.setObject(index++, from);
+            }
+            if (before != null) {
+                statement.setObject(index++, before);
+            }
+            for (LocalDate day : excludedDays) {
+                statement.setObject(index++, day);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    summaries.add(new TaskSummary(reportType, resultSet.getString("SUMMARY_GROUP"),
+                            resultSet.getLong("TOTAL"), resultSet.getLong("SEGMENTS")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new TimeTrackerException("There was a problem while retrieving the daily totals from the database", e);
+        }
+        return summaries;
+    }
+
+    /**
+     * This class is the total of the tasks of a day and task name that are saved together.
+     */
+    private static class DailyTotal {
+
+        private long totalMillis;
+        private long segments;
+        private LocalDateTime lastEndTime;
+
+        void add(Task task) {
+            totalMillis += task.getDuration();
+            segments++;
+            if (lastEndTime == null || task.getEndTime().isAfter(lastEndTime)) {
+                lastEndTime = task.getEndTime();
+            }
+        }
+
+    }
+
+}
@@ -1,18 +1,62 @@
 package controller.persistence.database.management;
 
+import controller.persistence.database.migration.SchemaMigrator;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import org.h2.jdbcx.JdbcConnectionPool;
+
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
 
 /**
  * This class is a Database Manager which helps to use the database with the basic operation
- * such as opening a connection and closing it.
+ * such as opening a connection and closing it.<br>
+ * The connections are taken from a small bounded pool that is created the first time a connection
+ * is requested: the database file is opened only once and the schema is migrated only once, then
+ * every connection that is closed by the caller is just given back to the pool.<br>
+ * The time needed to open the database and to take a connection from the pool is recorded in the
+ * {@link MetricsRegistry metrics}, together with the number of connections taken.
  * @author Patrich Tivoli
  */
 public class DatabaseManager {
 
-    private static Connection connection = null;
+    /**
+     * The url of the database.<br>
+     * DB_CLOSE_ON_EXIT is disabled because the database is closed by the shutdown of the
+     * {@link controller.Controller Controller}, after all the pending tasks are saved.
+     */
+    private static final String DATABASE_URL = "jdbc:h2:~/timeTracker;DB_CLOSE_ON_EXIT=FALSE";
+    /**
+     * The name of the system property used to choose another url of the database, e.g. an in-memory database
+     * for the benchmarks. It is read when the connection pool is created.
+     */
+    public static final String DATABASE_URL_PROPERTY = "timeTracker.database.url";
+    private static final String DATABASE_USER = "timeTracker";
+    /**
+     * The name of the system property used to choose the maximum number of connections that can be
+     * opened at the same time.
+     */
+    public static final String MAX_CONNECTIONS_PROPERTY = "timeTracker.database.maxConnections";
+    /**
+     * The maximum number of connections that can be opened at the same time.
+     */
+    private static final int MAX_CONNECTIONS = Integer.getInteger(MAX_CONNECTIONS_PROPERTY, 8);
+    /**
+     * The number of seconds to wait for a free connection or for a health check.
+     */
+    private static final int TIMEOUT_SECONDS = 5;
+
+    private static final Histogram OPEN_LATENCY = MetricsRegistry.histogram("database.open");
+    private static final Histogram CONNECTION_LATENCY = MetricsRegistry.histogram("database.getConnection");
+
+    private static volatile JdbcConnectionPool connectionPool = null;
+
+    static {
+        MetricsRegistry.gauge("database.activeConnections", () -> {
+            JdbcConnectionPool pool = connectionPool;
+            return pool == null ? 0 : pool.getActiveConnections();
+        });
+    }
 
     /**
      * Private Constructor to hide the default one.
@@ -20,47 +64,112 @@ public class DatabaseManager {
     private DatabaseManager() { }
 
     /**
-     * This method opens a connection to the timeTracker database, if it's already opened, the opened
-     * connection will be returned.<br>
+     * This method returns the connection pool, if it does not exist yet, it is created and the schema is
+     * brought to the latest version. The url is taken from the system property
+     * {@link DatabaseManager#DATABASE_URL_PROPERTY timeTracker.database.url}, if it is set.<br>
+     * The lock is taken only while the pool is created, so the connections are taken from the pool without
+     * waiting for each other.<br>
      * Note: there is no password since there is no sensitive data that need to be stored.
-     * @return a connection to the database
+     * @return the connection pool
      * @throws SQLException in case something goes wrong
+     * @see JdbcConnectionPool
+     * @see SchemaMigrator
      */
-    private static Connection openConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            connection = DriverManager.getConnection("jdbc:h2:~/timeTracker", "timeTracker", ""); //NOSONAR
-        }
-        return connection;
+    private static JdbcConnectionPool getConnectionPool() throws SQLException {
+        JdbcConnectionPool pool = connectionPool;
+        return pool != null ? pool : createConnectionPool();
     }
 
     /**
-     * This method creates a table if it does not exist.
+     * This method creates the connection pool, if no other thread created it in the meantime, and it brings
+     * the schema to the latest version.
+     * @return the connection pool
      * @throws SQLException in case something goes wrong
      */
-    private static void createTableIfNotExists() throws SQLException {
-        String createTableIfNotExists = "CREATE TABLE IF NOT EXISTS TIME_TRACKER ( START_TIME VARCHAR(23) NOT NULL PRIMARY KEY, END_TIME VARCHAR(23) NOT NULL, TASK_NAME VARCHAR(50) NOT NULL, DELTA VARCHAR(8) NOT NULL );";
-        try (Statement statement = connection.createStatement()){
-            statement.executeUpdate(createTableIfNotExists);
+    private static synchronized JdbcConnectionPool createConnectionPool() throws SQLException {
+        if (connectionPool == null) {
+            long start = System.nanoTime();
+            String url = System.getProperty(DATABASE_URL_PROPERTY, DATABASE_URL);
+            JdbcConnectionPool pool = JdbcConnectionPool.create(url, DATABASE_USER, ""); //NOSONAR
+            pool.setMaxConnections(MAX_CONNECTIONS);
+            pool.setLoginTimeout(TIMEOUT_SECONDS);
+            try (Connection connection = pool.getConnection()) {
+                new SchemaMigrator().migrate(connection);
+            } catch (SQLException | RuntimeException e) {
+                pool.dispose();
+                throw e;
+            }
+            connectionPool = pool;
+            OPEN_LATENCY.recordSince(start);
         }
+        return connectionPool;
     }
 
     /**
-     * This method opens a connection and create a table if it does not exist.
+     * This method initializes the database: it opens it and it migrates the schema to the latest version.<br>
+     * It is not mandatory to call it since the database is initialized when the first connection is requested,
+     * but in this way the cost of opening the database can be paid in advance.
+     * @throws SQLException in case something goes wrong
+     */
+    public static void initDatabase() throws SQLException {
+        getConnectionPool();
+    }
+
+    /**
+     * This method returns a connection taken from the pool.<br>
+     * The connection must be closed by the caller, in this way it is given back to the pool.
      * @return the connection to the database
      * @throws SQLException in case something goes wrong
      */
     public static Connection getDatabaseConnection() throws SQLException {
-        Connection conn = openConnection();
-        createTableIfNotExists();
-        return conn;
+        long start = System.nanoTime();
+        try {
+            return getConnectionPool().getConnection();
+        } finally {
+            CONNECTION_LATENCY.recordSince(start);
+        }
     }
 
     /**
-     * This method closes the connection database.
-     * @throws SQLException in case something goes wrong
+     * This method checks if the database can be reached by taking a connection from the pool
+     * and validating it.
+     * @return true if the database is working, false otherwise
+     */
+    public static boolean isHealthy() {
+        try (Connection connection = getDatabaseConnection()) {
+            return connection.isValid(TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * This method returns the maximum number of connections that can be taken from the pool at the same time.
+     * @return the maximum number of connections
      */
-    public static void closeConnection() throws SQLException {
-        connection.close();
+    public static int getMaxConnections() {
+        return MAX_CONNECTIONS;
+    }
+
+    /**
+     * This method returns the number of connections that are currently taken from the pool.
+     * @return the number of active connections, 0 if the pool is not initialized
+     */
+    public static int getActiveConnections() {
+        JdbcConnectionPool pool = connectionPool;
+        return pool == null ? 0 : pool.getActiveConnections();
+    }
+
+    /**
+     * This method closes the connection pool and with it the database.<br>
+     * If a connection is requested again, a new pool is created.
+     */
+    public static synchronized void closeConnection() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+            connectionPool = null;
+            TaskNameDao.clearCache();
+        }
     }
 
 }
@@ -1,22 +1,79 @@
 package controller.persistence.database.management;
 
 import exceptions.TimeTrackerException;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import model.ReportType;
 import model.Task;
+import model.TaskStore;
+import model.TaskSummary;
+import model.TimeUtils;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.LinkedList;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 /**
- * This class is a Data Access Object which aims saving a task on the H2 database.
+ * This class is a Data Access Object which aims saving a task on the H2 database.<br>
+ * Every query is executed through a {@link PreparedStatement PreparedStatement} built from a constant
+ * SQL string, in this way H2 can reuse the parsed statement from its per-connection query cache
+ * and the values never need to be escaped.<br>
+ * The start and end times are stored as TIMESTAMP and the delta is stored as a number of milliseconds,
+ * so the range queries are resolved by the indexes without parsing strings. The name of the task is stored
+ * once in the {@link TaskNameDao dictionary of the names} and the tasks reference it by id.<br>
+ * The time spent by the saves and by the queries is recorded in the {@link MetricsRegistry metrics}.
  * @author Patrich Tivoli
  */
 public class TaskDao {
 
+    private static final String INSERT_TASK = "INSERT INTO TIME_TRACKER ( START_TIME, END_TIME, TASK_NAME_ID, DURATION ) VALUES ( ?, ?, ?, ? )";
+    private static final String MERGE_TASK = "MERGE INTO TIME_TRACKER T USING ( VALUES ( CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP), CAST(? AS INT), CAST(? AS BIGINT) ) ) AS S ( START_TIME, END_TIME, TASK_NAME_ID, DURATION ) ON T.START_TIME >= DATE_TRUNC(SECOND, S.START_TIME) AND T.START_TIME < DATEADD(SECOND, 1, DATE_TRUNC(SECOND, S.START_TIME)) AND ( T.START_TIME = S.START_TIME OR T.TASK_NAME_ID = S.TASK_NAME_ID ) WHEN MATCHED THEN UPDATE SET END_TIME = S.END_TIME, TASK_NAME_ID = S.TASK_NAME_ID, DURATION = S.DURATION WHEN NOT MATCHED THEN INSERT ( START_TIME, END_TIME, TASK_NAME_ID, DURATION ) VALUES ( S.START_TIME, S.END_TIME, S.TASK_NAME_ID, S.DURATION )";
+    private static final String SELECT_TASKS = "SELECT T.START_TIME, T.END_TIME, N.NAME AS TASK_NAME, T.DURATION FROM TIME_TRACKER T JOIN TASK_NAMES N ON N.ID = T.TASK_NAME_ID";
+    private static final String SELECT_START_TIME_BOUNDS = "SELECT MIN(START_TIME), MAX(START_TIME) FROM TIME_TRACKER";
+    private static final String SELECT_SUMMARY = "SELECT %s AS SUMMARY_GROUP, SUM(DURATION) AS TOTAL, COUNT(*) AS SEGMENTS FROM TIME_TRACKER";
+    private static final String GROUP_BY_SUMMARY = " GROUP BY SUMMARY_GROUP ORDER BY SUMMARY_GROUP";
+    private static final String SELECT_SUMMARY_BY_TASK_NAME = "SELECT N.NAME AS SUMMARY_GROUP, S.TOTAL, S.SEGMENTS FROM ( SELECT TASK_NAME_ID, SUM(DURATION) AS TOTAL, COUNT(*) AS SEGMENTS FROM TIME_TRACKER";
+    private static final String GROUP_BY_TASK_NAME_SUMMARY = " GROUP BY TASK_NAME_ID ) S JOIN TASK_NAMES N ON N.ID = S.TASK_NAME_ID ORDER BY SUMMARY_GROUP";
+    private static final String GROUP_BY_DAY = "FORMATDATETIME(%1$s, 'yyyy/MM/dd')";
+    private static final String GROUP_BY_WEEK = "CAST(EXTRACT(ISO_WEEK_YEAR FROM %1$s) AS VARCHAR) || '-W' || LPAD(CAST(EXTRACT(ISO_WEEK FROM %1$s) AS VARCHAR), 2, '0')";
+    private static final String GROUP_BY_MONTH = "FORMATDATETIME(%1$s, 'yyyy/MM')";
+    private static final String WHERE = " WHERE 1 = 1";
+    private static final String AND_START_TIME_FROM = " AND START_TIME >= ?";
+    private static final String AND_START_TIME_BEFORE = " AND START_TIME < ?";
+    private static final String AND_END_TIME_TO = " AND END_TIME <= ?";
+    private static final String ORDER_BY_START_TIME = " ORDER BY START_TIME";
+    private static final String ENABLE_LAZY_QUERY = "SET LAZY_QUERY_EXECUTION TRUE";
+    private static final String DISABLE_LAZY_QUERY = "SET LAZY_QUERY_EXECUTION FALSE";
+    /**
+     * The maximum number of inserts sent to the database in a single batch.
+     */
+    private static final int BATCH_SIZE = 1000;
+    /**
+     * The number of rows fetched at a time while streaming the tasks.
+     */
+    private static final int FETCH_SIZE = 500;
+
+    private static final Histogram SAVE_LATENCY = MetricsRegistry.histogram("taskDao.saveTasks");
+    private static final Histogram MERGE_LATENCY = MetricsRegistry.histogram("taskDao.mergeTasks");
+    private static final Histogram STREAM_LATENCY = MetricsRegistry.histogram("taskDao.streamTasks");
+    private static final int MAX_DAYS_FROM_TASKS = 31;
+    private static final Histogram SUMMARY_LATENCY = MetricsRegistry.histogram("taskDao.getSummary");
+    private static final Counter SAVED_TASKS = MetricsRegistry.counter("taskDao.savedTasks");
+    private static final Counter READ_TASKS = MetricsRegistry.counter("taskDao.readTasks");
+
     /**
      * Private Constructor to hide the default one.
      */
@@ -29,16 +86,123 @@ public class TaskDao {
      * @see controller.persistence.PersistenceManager
      */
     public static void saveTask(Task task) {
+        saveTasks(Collections.singletonList(task));
+    }
+
+    /**
+     * This method saves a collection of tasks on the database.<br>
+     * All the tasks are inserted with JDBC batches inside a single transaction, together with the new task names
+     * and the update of the daily totals: either all the tasks are saved or none of them.
+     * @param tasks the tasks that need to be saved
+     * @see DatabaseManager
+     * @see TaskNameDao
+     * @see DailyRollupDao
+     * @see PreparedStatement#addBatch()
+     */
+    public static void saveTasks(Collection<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
         try (Connection connection = DatabaseManager.getDatabaseConnection()) {
-            String sql = "INSERT INTO TIME_TRACKER VALUES ( '" + task.getStartTime() + "', '" + task.getEndTime() + "', '" + task.getTaskName() + "', '" + task.getDelta() + "' )";
-            try (Statement statement = connection.createStatement()){
-                statement.executeUpdate(sql);
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_TASK)) {
+                Map<String, Integer> taskNameIds = TaskNameDao.getTaskNameIds(connection, tasks);
+                executeBatches(statement, tasks, taskNameIds);
+                DailyRollupDao.addTasks(connection, tasks, taskNameIds);
+                connection.commit();
+                TaskNameDao.cacheTaskNameIds(taskNameIds);
+                SAVED_TASKS.add(tasks.size());
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
             }
         } catch (SQLException e) {
             throw new TimeTrackerException("There was a problem while saving the task on the database", e);
+        } finally {
+            SAVE_LATENCY.recordSince(start);
         }
     }
 
+    /**
+     * This method saves some tasks, a task replaces the saved task that starts at the same date and time or, since
+     * the files have only whole seconds while the tasks saved by the program keep the fractions of a second, the
+     * saved task with the same name that starts in the same second. In this way a file with tasks that are already
+     * saved, like the journal, can be imported again without duplicates.<br>
+     * Two tasks with the same name that start in the same second cannot be told apart: they are both replaced by
+     * the imported one.<br>
+     * It is used to import many tasks at once: all the tasks are written with JDBC batches inside a single
+     * transaction, but the daily totals are not updated, so they have to be
+     * {@link DailyRollupDao#rebuild() rebuilt} when all the tasks are imported.
+     * @param tasks the tasks that need to be saved
+     * @see TaskNameDao
+     * @see PreparedStatement#addBatch()
+     */
+    public static void mergeTasks(Collection<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try (Connection connection = DatabaseManager.getDatabaseConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(MERGE_TASK)) {
+                Map<String, Integer> taskNameIds = TaskNameDao.getTaskNameIds(connection, tasks);
+                executeBatches(statement, tasks, taskNameIds);
+                connection.commit();
+                TaskNameDao.cacheTaskNameIds(taskNameIds);
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new TimeTrackerException("There was a problem while importing the tasks on the database", e);
+        } finally {
+            MERGE_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * This method executes a statement for every task, with batches of {@value #BATCH_SIZE} tasks.
+     * @param statement the insert or merge statement
+     * @param tasks the tasks
+     * @param taskNameIds the id of the name of every task
+     * @throws SQLException in case something goes wrong
+     */
+    private static void executeBatches(PreparedStatement statement, Collection<Task> tasks, Map<String, Integer> taskNameIds) throws SQLException {
+        int pending = 0;
+        for (Task task : tasks) {
+            bindTask(statement, task, taskNameIds.get(task.getTaskName()));
+            statement.addBatch();
+            if (++pending == BATCH_SIZE) {
+                statement.executeBatch();
+                pending = 0;
+            }
+        }
+        if (pending > 0) {
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * This method sets the values of a task as parameters of the insert statement.
+     * @param statement the insert statement
+     * @param task the task to bind
+     * @param taskNameId the id of the name of the task
+     * @throws SQLException in case something goes wrong
+     */
+    private static void bindTask(PreparedStatement statement, Task task, int taskNameId) throws SQLException {
+        statement.setObject(1, task.getStartTime());
+        statement.setObject(2, task.getEndTime());
+        statement.setInt(3, taskNameId);
+        statement.setLong(4, task.getDuration());
+    }
+
     /**
      * This method retrieves all the task executed today.
      * @return the task executed today
@@ -55,47 +219,329 @@ public class TaskDao {
      * This method gets a list of tasks based on a range of {@link LocalDateTime LocalDateTime}.
      * @param from "from" date and time
      * @param to "to" date and time
-     * @return a list of tasks
+     * @return a list of tasks, sorted by start time
      */
     public static List<Task> getTaskFromRange(LocalDateTime from, LocalDateTime to) {
-        List<Task> taskList = new LinkedList<>();
-        try (Connection connection = DatabaseManager.getDatabaseConnection()) {
-            String sql = buildQuery(from, to);
-            try (Statement statement = connection.createStatement()){
-                ResultSet resultSet = statement.executeQuery(sql);
-                while (resultSet.next()) {
-                    String taskName = resultSet.getString("TASK_NAME");
-                    Task task = new Task(taskName);
-                    String startTime = resultSet.getString("START_TIME");
-                    String endTime = resultSet.getString("END_TIME");
-                    String delta = resultSet.getString("DELTA");
-                    task.setStartTime(LocalDateTime.parse(startTime));
-                    task.setEndTime(LocalDateTime.parse(endTime));
-                    task.setDelta(delta);
-                    taskList.add(task);
+        List<Task> taskList = new ArrayList<>();
+        streamTaskFromRange(from, to, taskList::add);
+        return taskList;
+    }
+
+    /**
+     * This method reads the tasks based on a range of {@link LocalDateTime LocalDateTime} and gives them,
+     * sorted by start time, to a consumer one at a time while they are read.<br>
+     * The query is executed lazily with a forward-only cursor, so the memory used does not depend on the
+     * number of tasks in the range.
+     * @param from "from" date and time
+     * @param to "to" date and time
+     * @param consumer the consumer of the tasks
+     * @return the number of tasks read
+     */
+    public static long streamTaskFromRange(LocalDateTime from, LocalDateTime to, Consumer<Task> consumer) {
+        return streamTaskFromRange(from, null, to, consumer);
+    }
+
+    /**
+     * This method reads the tasks based on a range of {@link LocalDateTime LocalDateTime} and gives them,
+     * sorted by start time, to a consumer one at a time while they are read.<br>
+     * Compared to {@link TaskDao#streamTaskFromRange(LocalDateTime, LocalDateTime, Consumer) streamTaskFromRange},
+     * it reads only the tasks started before a date and time, so that a range can be split in partitions
+     * that do not overlap.
+     * @param from "from" date and time, it is compared with the start time
+     * @param startBefore the tasks must start before this date and time
+     * @param to "to" date and time, it is compared with the end time
+     * @param consumer the consumer of the tasks
+     * @return the number of tasks read
+     */
+    public static long streamTaskFromRange(LocalDateTime from, LocalDateTime startBefore, LocalDateTime to, Consumer<Task> consumer) {
+        return streamRows(from, startBefore, to, resultSet -> consumer.accept(readTask(resultSet)));
+    }
+
+    /**
+     * This method reads the tasks based on a range of {@link LocalDateTime LocalDateTime} in a
+     * {@link TaskStore TaskStore}, sorted by start time.<br>
+     * The rows are written directly in the store, without making a {@link Task Task} for every row.
+     * @param from "from" date and time
+     * @param to "to" date and time
+     * @return the store with the tasks
+     */
+    public static TaskStore getTaskStoreFromRange(LocalDateTime from, LocalDateTime to) {
+        TaskStore taskStore = new TaskStore();
+        streamRows(from, null, to, resultSet -> taskStore.add(
+                TimeUtils.toEpochMillis(resultSet.getObject("START_TIME", LocalDateTime.class)),
+                TimeUtils.toEpochMillis(resultSet.getObject("END_TIME", LocalDateTime.class)),
+                resultSet.getLong("DURATION"),
+                resultSet.getString("TASK_NAME")));
+        return taskStore;
+    }
+
+    /**
+     * This method reads the rows of the tasks based on a range of {@link LocalDateTime LocalDateTime}, sorted
+     * by start time, with a lazy query and a forward-only cursor.
+     * @param from "from" date and time, it is compared with the start time
+     * @param startBefore the tasks must start before this date and time
+     * @param to "to" date and time, it is compared with the end time
+     * @param rowReader the reader of every row
+     * @return the number of rows read
+     */
+    private static long streamRows(LocalDateTime from, LocalDateTime startBefore, LocalDateTime to, RowReader rowReader) {
+        long rows = 0;
+        long start = System.nanoTime();
+        try (Connection connection = DatabaseManager.getDatabaseConnection();
+             Statement settings = connection.createStatement()) {
+            settings.execute(ENABLE_LAZY_QUERY);
+            try (PreparedStatement statement = prepareRangeQuery(connection, SELECT_TASKS, from, startBefore, to, ORDER_BY_START_TIME)) {
+                statement.setFetchSize(FETCH_SIZE);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        rowReader.read(resultSet);
+                        rows++;
+                    }
                 }
+            } finally {
+                settings.execute(DISABLE_LAZY_QUERY);
             }
         } catch (SQLException e) {
-            throw new TimeTrackerException("There was a problem while saving the task on the database", e);
+            throw new TimeTrackerException("There was a problem while retrieving the tasks from the database", e);
+        } finally {
+            STREAM_LATENCY.recordSince(start);
+            READ_TASKS.add(rows);
+        }
+        return rows;
+    }
+
+    /**
+     * This method returns the start time of the first and of the last task in a range of
+     * {@link LocalDateTime LocalDateTime}.
+     * @param from "from" date and time
+     * @param to "to" date and time
+     * @return an array with the first and the last start time, null if there are no tasks in the range
+     */
+    public static LocalDateTime[] getStartTimeBounds(LocalDateTime from, LocalDateTime to) {
+        try (Connection connection = DatabaseManager.getDatabaseConnection();
+             PreparedStatement statement = prepareRangeQuery(connection, SELECT_START_TIME_BOUNDS, from, null, to, "");
+             ResultSet resultSet = statement.executeQuery()) {
+            if (!resultSet.next() || resultSet.getObject(1) == null) {
+                return null;
+            }
+            return new LocalDateTime[] {
+                    resultSet.getObject(1, LocalDateTime.class),
+                    resultSet.getObject(2, LocalDateTime.class)
+            };
+        } catch (SQLException e) {
+            throw new TimeTrackerException("There was a problem while retrieving the tasks from the database", e);
         }
-        return taskList;
     }
 
     /**
-     * This method aims to build a query based on the available data.
+     * This method computes the total time spent on the tasks of a range of {@link LocalDateTime LocalDateTime},
+     * grouped by task name, day, ISO week or month.<br>
+     * The tasks counted are the same of the list of the tasks of the range: the ones that start from "from" and
+     * end by "to", and they are grouped by the day in which they start.<br>
+     * The totals are computed by the database, no task is read. If the range is made of whole days, the totals
+     * are read from the {@link DailyRollupDao daily totals} instead of the tasks, but only for the days whose
+     * tasks all end by "to": the days with a task that ends after "to" (usually only the last one, or the ones
+     * of a task longer than a day) are read from the tasks, so the result is always the same of the list.
+     * If there are more than {@value #MAX_DAYS_FROM_TASKS} of those days, the whole range is read from the tasks.
+     * The totals by task name are grouped by the id of the name, the names are read only for the groups.
      * @param from "from" date and time
      * @param to "to" date and time
-     * @return the query
+     * @param reportType how the tasks are grouped
+     * @return a summary for every group, sorted by group
+     * @see ReportType
+     * @see TaskSummary
+     */
+    public static List<TaskSummary> getSummary(LocalDateTime from, LocalDateTime to, ReportType reportType) {
+        long start = System.nanoTime();
+        try {
+            if (!isStartOfDay(from) || !isStartOfDay(to)) {
+                return getSummaryOfTasks(from, null, to, reportType);
+            }
+            LocalDate fromDay = from == null ? null : from.toLocalDate();
+            if (to == null) {
+                return DailyRollupDao.getSummary(fromDay, null, Collections.emptyList(), reportType);
+            }
+            LocalDate toDay = to.toLocalDate();
+            List<LocalDate> daysEndingAfter = DailyRollupDao.getDaysEndingAfter(fromDay, toDay, to);
+            if (daysEndingAfter.size() > MAX_DAYS_FROM_TASKS) {
+                return getSummaryOfTasks(from, null, to, reportType);
+            }
+            List<TaskSummary> summaries = DailyRollupDao.getSummary(fromDay, toDay, daysEndingAfter, reportType);
+            for (LocalDate day : daysEndingAfter) {
+                summaries = mergeSummaries(summaries, getSummaryOfTasks(day.atStartOfDay(),
+                        day.plusDays(1).atStartOfDay(), to, reportType));
+            }
+            return summaries;
+        } finally {
+            SUMMARY_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * This method adds up two summaries of the same type, the groups that are in both are merged.
+     * @param first the first summary, sorted by group
+     * @param second the second summary, sorted by group
+     * @return the merged summary, sorted by group
+     */
+    private static List<TaskSummary> mergeSummaries(List<TaskSummary> first, List<TaskSummary> second) {
+        if (second.isEmpty()) {
+            return first;
+        }
+        Map<String, TaskSummary> merged = new TreeMap<>();
+        for (TaskSummary summary : first) {
+            merged.put(summary.getGroup(), summary);
+        }
+        for (TaskSummary summary : second) {
+            merged.merge(summary.getGroup(), summary, (a, b) -> new TaskSummary(a.getReportType(), a.getGroup(),
+                    a.getTotalMillis() + b.getTotalMillis(), a.getCount() + b.getCount()));
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    /**
+     * This method computes the total time spent on the tasks of a range from the table of the tasks.
+     * @param from "from" date and time, null for no limit
+     * @param startBefore the tasks must start before this date and time, null for no limit
+     * @param to "to" date and time, null for no limit
+     * @param reportType how the tasks are grouped
+     * @return a summary for every group, sorted by group
+     */
+    private static List<TaskSummary> getSummaryOfTasks(LocalDateTime from, LocalDateTime startBefore, LocalDateTime to,
+                                                       ReportType reportType) {
+        try (Connection connection = DatabaseManager.getDatabaseConnection();
+             PreparedStatement statement = prepareRangeQuery(connection, getSummarySelect(reportType), from,
+                     startBefore, to, getSummarySuffix(reportType))) {
+            return readSummaries(statement, reportType);
+        } catch (SQLException e) {
+            throw new TimeTrackerException("There was a problem while retrieving the tasks from the database", e);
+        }
+    }
+
+    /**
+     * This method returns the select of a summary of the tasks, without the conditions.
+     * @param reportType how the tasks are grouped
+     * @return the select
+     */
+    private static String getSummarySelect(ReportType reportType) {
+        return reportType == ReportType.TASK_NAME
+                ? SELECT_SUMMARY_BY_TASK_NAME
+                : String.format(SELECT_SUMMARY, getGroupExpression(reportType, "START_TIME"));
+    }
+
+    /**
+     * This method returns the grouping of a summary of the tasks, that follows the conditions.
+     * @param reportType how the tasks are grouped
+     * @return the grouping
+     */
+    private static String getSummarySuffix(ReportType reportType) {
+        return reportType == ReportType.TASK_NAME ? GROUP_BY_TASK_NAME_SUMMARY : GROUP_BY_SUMMARY;
+    }
+
+    /**
+     * This method executes the query of a summary and reads its groups.
+     * @param statement the query
+     * @param reportType how the tasks are grouped
+     * @return a summary for every group, sorted by group
+     * @throws SQLException in case something goes wrong
+     */
+    private static List<TaskSummary> readSummaries(PreparedStatement statement, ReportType reportType) throws SQLException {
+        List<TaskSummary> summaries = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                summaries.add(new TaskSummary(reportType, resultSet.getString("SUMMARY_GROUP"),
+                        resultSet.getLong("TOTAL"), resultSet.getLong("SEGMENTS")));
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * This method checks if a date and time is missing or it is exactly at the start of a day.
+     * @param dateTime the date and time
+     * @return true if it is null or at midnight, false otherwise
      */
-    private static String buildQuery(LocalDateTime from, LocalDateTime to) {
-        String sql = "SELECT * FROM TIME_TRACKER WHERE 1 = 1 ";
+    private static boolean isStartOfDay(LocalDateTime dateTime) {
+        return dateTime == null || dateTime.toLocalTime().equals(LocalTime.MIDNIGHT);
+    }
+
+    /**
+     * This method returns the SQL expression used to group the tasks by date.
+     * @param reportType how the tasks are grouped
+     * @param dateColumn the column with the date used to group by day, week or month
+     * @return the SQL expression
+     * @throws TimeTrackerException if the report type does not group the tasks by date
+     */
+    static String getGroupExpression(ReportType reportType, String dateColumn) {
+        switch (reportType) {
+            case DAY:
+                return String.format(GROUP_BY_DAY, dateColumn);
+            case WEEK:
+                return String.format(GROUP_BY_WEEK, dateColumn);
+            case MONTH:
+                return String.format(GROUP_BY_MONTH, dateColumn);
+            default:
+                throw new TimeTrackerException("The report " + reportType + " does not group the tasks by date");
+        }
+    }
+
+    /**
+     * This interface reads the current row of a result set.
+     */
+    @FunctionalInterface
+    private interface RowReader {
+        void read(ResultSet resultSet) throws SQLException;
+    }
+
+    /**
+     * This method reads a task from the current row of a result set.
+     * @param resultSet the result set positioned on a row
+     * @return the task
+     * @throws SQLException in case something goes wrong
+     */
+    private static Task readTask(ResultSet resultSet) throws SQLException {
+        Task task = new Task(resultSet.getString("TASK_NAME"));
+        task.setStartTime(resultSet.getObject("START_TIME", LocalDateTime.class));
+        task.setEndTime(resultSet.getObject("END_TIME", LocalDateTime.class));
+        task.setDuration(resultSet.getLong("DURATION"));
+        return task;
+    }
+
+    /**
+     * This method aims to prepare a query based on the available data, the conditions are added only
+     * for the dates and times that are not null.
+     * @param connection the connection used to prepare the statement
+     * @param select the select without conditions
+     * @param from "from" date and time, it is compared with the start time
+     * @param startBefore the tasks must start before this date and time
+     * @param to "to" date and time, it is compared with the end time
+     * @param suffix the text appended after the conditions (e.g. the order by)
+     * @return the prepared query with its parameters already set
+     * @throws SQLException in case something goes wrong
+     */
+    private static PreparedStatement prepareRangeQuery(Connection connection, String select, LocalDateTime from,
+                                                       LocalDateTime startBefore, LocalDateTime to, String suffix) throws SQLException {
+        StringBuilder sql = new StringBuilder(select).append(WHERE);
         if (from != null) {
-            sql += "AND START_TIME >= '" + from + "' ";
+            sql.append(AND_START_TIME_FROM);
+        }
+        if (startBefore != null) {
+            sql.append(AND_START_TIME_BEFORE);
+        }
+        if (to != null) {
+            sql.append(AND_END_TIME_TO);
+        }
+        PreparedStatement statement = connection.prepareStatement(sql.append(suffix).toString());
+        int index = 1;
+        if (from != null) {
+            statement.setObject(index++, from);
+        }
+        if (startBefore != null) {
+            statement.setObject(index++, startBefore);
         }
         if (to != null) {
-            sql += "AND END_TIME <= '" + to + "'";
+            statement.setObject(index, to);
         }
-        return sql;
+        return statement;
     }
 
 }
@@ -0,0 +1,100 @@
+package controller.persistence.database.management;
+
+import model.Task;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class is a Data Access Object for the TASK_NAMES table, the dictionary with every task name and its id.<br>
+ * The tasks reference their name through its id, so the ids of the names are kept in a cache: a name is read
+ * from the database only the first time it is used, and it is added to the dictionary if it is new.
+ * A new id is put in the cache only after the transaction that added it is committed, so a rollback never
+ * leaves an id in the cache that does not exist in the database.
+ * @author Patrich Tivoli
+ * @see TaskDao
+ */
+public class TaskNameDao {
+
+    private static final String SELECT_TASK_NAME_ID = "SELECT ID FROM TASK_NAMES WHERE NAME = ?";
+    private static final String INSERT_TASK_NAME = "INSERT INTO TASK_NAMES ( NAME ) VALUES ( ? )";
+
+    private static final Map<String, Integer> TASK_NAME_IDS = new ConcurrentHashMap<>();
+
+    /**
+     * Private Constructor to hide the default one.
+     */
+    private TaskNameDao() { }
+
+    /**
+     * This method returns the ids of the names of some tasks, the names that are not in the dictionary are
+     * added. It does not commit, the ids of the added names have to be put in the cache after the commit.
+     * @param connection the connection with the transaction in which the tasks are saved
+     * @param tasks the tasks
+     * @return the id of every name
+     * @throws SQLException in case something goes wrong
+     * @see TaskNameDao#cacheTaskNameIds(Map)
+     */
+    static Map<String, Integer> getTaskNameIds(Connection connection, Collection<Task> tasks) throws SQLException {
+        Map<String, Integer> ids = new HashMap<>();
+        try (PreparedStatement select = connection.prepareStatement(SELECT_TASK_NAME_ID);
+             PreparedStatement insert = connection.prepareStatement(INSERT_TASK_NAME, new String[] {"ID"})) {
+            for (Task task : tasks) {
+                String taskName = task.getTaskName();
+                if (!ids.containsKey(taskName)) {
+                    Integer id = TASK_NAME_IDS.get(taskName);
+                    ids.put(taskName, id != null ? id : readOrInsert(select, insert, taskName));
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * This method puts some ids in the cache, it has to be called after the commit of the transaction in
+     * which the ids are read or added.
+     * @param ids the id of every name
+     */
+    static void cacheTaskNameIds(Map<String, Integer> ids) {
+        TASK_NAME_IDS.putAll(ids);
+    }
+
+    /**
+     * This method empties the cache, it is needed when the database is closed.
+     */
+    static void clearCache() {
+        TASK_NAME_IDS.clear();
+    }
+
+    /**
+     * This method reads the id of a name and, if the name is not in the dictionary, it adds it.
+     * @param select the statement that reads the id
+     * @param insert the statement that adds the name
+     * @param taskName the name of the task
+     * @return the id of the name
+     * @throws SQLException in case something goes wrong
+     */
+    private static int readOrInsert(PreparedStatement select, PreparedStatement insert, String taskName) throws SQLException {
+        select.setString(1, taskName);
+        try (ResultSet resultSet = select.executeQuery()) {
+            if (resultSet.next()) {
+                return resultSet.getInt(1);
+            }
+        }
+        insert.setString(1, taskName);
+        insert.executeUpdate();
+        try (ResultSet generatedKeys = insert.getGeneratedKeys()) {
+            if (!generatedKeys.next()) {
+                throw new SQLException("The id of the task name " + taskName + " was not generated");
+            }
+            return generatedKeys.getInt(1);
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+package controller.persistence.database.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * This migration adds the DAILY_ROLLUP table: for every day and task name it contains the total
+ * duration in milliseconds and the number of tasks, so the totals of long periods can be computed
+ * without reading every task.<br>
+ * The table is filled with the tasks already saved; the tasks are assigned to the day in which they start.
+ * @author Patrich Tivoli
+ */
+class DailyRollupMigration implements Migration {
+
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS DAILY_ROLLUP ( START_DAY DATE NOT NULL, TASK_NAME VARCHAR(50) NOT NULL, TOTAL BIGINT NOT NULL, SEGMENTS BIGINT NOT NULL, PRIMARY KEY ( START_DAY, TASK_NAME ) )";
+    private static final String DELETE_ROWS = "DELETE FROM DAILY_ROLLUP";
+    private static final String FILL_TABLE = "INSERT INTO DAILY_ROLLUP ( START_DAY, TASK_NAME, TOTAL, SEGMENTS ) SELECT CAST(START_TIME AS DATE), TASK_NAME, SUM(DURATION), COUNT(*) FROM TIME_TRACKER GROUP BY CAST(START_TIME AS DATE), TASK_NAME";
+
+    @Override
+    public int getVersion() {
+        return 3;
+    }
+
+    @Override
+    public String getDescription() {
+        return "DAILY_ROLLUP table with the totals of every day and task name";
+    }
+
+    /**
+     * This method creates the DAILY_ROLLUP table and fills it with a single query.
+     * @param connection the connection to the database
+     * @param listener the listener that is notified about the progress
+     * @throws SQLException in case something goes wrong
+     */
+    @Override
+    public void migrate(Connection connection, MigrationListener listener) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(CREATE_TABLE);
+            statement.executeUpdate(DELETE_ROWS);
+            int rows = statement.executeUpdate(FILL_TABLE);
+            listener.onProgress(this, rows, rows);
+        }
+    }
+
+}
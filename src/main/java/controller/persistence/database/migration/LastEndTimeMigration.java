@@ -0,0 +1,47 @@
+package controller.persistence.database.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * This migration adds to the DAILY_ROLLUP table the LAST_END_TIME column: for every day and task name it
+ * contains when the last of its tasks ends, so the summaries know which daily totals can be used for a range
+ * that ends in the middle of a task.<br>
+ * The column is filled with the tasks already saved and it is indexed, since a summary looks only for the
+ * few days that end after its range.
+ * @author Patrich Tivoli
+ */
+class LastEndTimeMigration implements Migration {
+
+    private static final String ADD_COLUMN = "ALTER TABLE DAILY_ROLLUP ADD COLUMN IF NOT EXISTS LAST_END_TIME TIMESTAMP";
+    private static final String CREATE_INDEX = "CREATE INDEX IF NOT EXISTS IDX_DAILY_ROLLUP_LAST_END_TIME ON DAILY_ROLLUP ( LAST_END_TIME )";
+    private static final String FILL_COLUMN = "MERGE INTO DAILY_ROLLUP R USING ( SELECT CAST(START_TIME AS DATE) AS START_DAY, TASK_NAME_ID, MAX(END_TIME) AS LAST_END_TIME FROM TIME_TRACKER GROUP BY CAST(START_TIME AS DATE), TASK_NAME_ID ) S ON R.START_DAY = S.START_DAY AND R.TASK_NAME_ID = S.TASK_NAME_ID WHEN MATCHED THEN UPDATE SET LAST_END_TIME = S.LAST_END_TIME";
+
+    @Override
+    public int getVersion() {
+        return 5;
+    }
+
+    @Override
+    public String getDescription() {
+        return "LAST_END_TIME of every day and task name in DAILY_ROLLUP";
+    }
+
+    /**
+     * This method adds the LAST_END_TIME column, fills it with a single query and creates its index.
+     * @param connection the connection to the database
+     * @param listener the listener that is notified about the progress
+     * @throws SQLException in case something goes wrong
+     */
+    @Override
+    public void migrate(Connection connection, MigrationListener listener) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(ADD_COLUMN);
+            int rows = statement.executeUpdate(FILL_COLUMN);
+            statement.executeUpdate(CREATE_INDEX);
+            listener.onProgress(this, rows, rows);
+        }
+    }
+
+}
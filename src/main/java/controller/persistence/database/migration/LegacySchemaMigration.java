@@ -0,0 +1,40 @@
+package controller.persistence.database.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * This is the first version of the schema: the TIME_TRACKER table with all the columns
+ * stored as VARCHAR.<br>
+ * It is applied only on empty databases, so that every database goes through the same migrations.
+ * @author Patrich Tivoli
+ */
+class LegacySchemaMigration implements Migration {
+
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS TIME_TRACKER ( START_TIME VARCHAR(23) NOT NULL PRIMARY KEY, END_TIME VARCHAR(23) NOT NULL, TASK_NAME VARCHAR(50) NOT NULL, DELTA VARCHAR(8) NOT NULL )";
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public String getDescription() {
+        return "TIME_TRACKER table with VARCHAR columns";
+    }
+
+    /**
+     * This method creates the TIME_TRACKER table if it does not exist.
+     * @param connection the connection to the database
+     * @param listener the listener that is notified about the progress
+     * @throws SQLException in case something goes wrong
+     */
+    @Override
+    public void migrate(Connection connection, MigrationListener listener) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(CREATE_TABLE);
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+package controller.persistence.database.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * This interface represents a single step of the evolution of the database schema.<br>
+ * Every migration has a version, the migrations are applied in ascending order of version
+ * and each of them is applied only once.
+ * @author Patrich Tivoli
+ * @see SchemaMigrator
+ */
+public interface Migration {
+
+    /**
+     * This method returns the version of the schema after this migration is applied.
+     * @return the version of the schema
+     */
+    int getVersion();
+
+    /**
+     * This method returns a short description of the migration.
+     * @return the description of the migration
+     */
+    String getDescription();
+
+    /**
+     * This method applies the migration.<br>
+     * A migration must be able to restart from the beginning if it was interrupted, since the version
+     * of the schema is updated only after the migration is completed.
+     * @param connection the connection to the database
+     * @param listener the listener that is notified about the progress
+     * @throws SQLException in case something goes wrong
+     */
+    void migrate(Connection connection, MigrationListener listener) throws SQLException;
+
+}
@@ -0,0 +1,18 @@
+package controller.persistence.database.migration;
+
+/**
+ * This interface is used to be notified about the progress of a migration.
+ * @author Patrich Tivoli
+ */
+@FunctionalInterface
+public interface MigrationListener {
+
+    /**
+     * This method is called every time a migration makes some progress.
+     * @param migration the migration that is running
+     * @param done the number of rows already migrated
+     * @param total the total number of rows that need to be migrated
+     */
+    void onProgress(Migration migration, long done, long total);
+
+}
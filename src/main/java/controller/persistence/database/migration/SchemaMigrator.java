@@ -0,0 +1,149 @@
+package controller.persistence.database.migration;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class brings the database schema to the latest version.<br>
+ * The current version is stored in the SCHEMA_VERSION table; a database that has the TIME_TRACKER table
+ * but not the SCHEMA_VERSION table was created before the migrations were introduced, so it is considered
+ * at version 1.
+ * @author Patrich Tivoli
+ * @see Migration
+ */
+public class SchemaMigrator {
+
+    private static final Logger LOGGER = Logger.getLogger(SchemaMigrator.class.getName());
+
+    private static final String CREATE_SCHEMA_VERSION = "CREATE TABLE IF NOT EXISTS SCHEMA_VERSION ( VERSION INT NOT NULL )";
+    private static final String SELECT_SCHEMA_VERSION = "SELECT MAX(VERSION) FROM SCHEMA_VERSION";
+    private static final String INSERT_SCHEMA_VERSION = "INSERT INTO SCHEMA_VERSION ( VERSION ) VALUES ( ? )";
+    private static final String DELETE_SCHEMA_VERSION = "DELETE FROM SCHEMA_VERSION";
+
+    /**
+     * The list of all the migrations, sorted by version.
+     */
+    private static final List<Migration> MIGRATIONS = Collections.unmodifiableList(Arrays.asList(
+            new LegacySchemaMigration(),
+            new TypedColumnsMigration(),
+            new DailyRollupMigration(),
+            new TaskNamesMigration(),
+            new LastEndTimeMigration()
+    ));
+
+    private final MigrationListener listener;
+
+    /**
+     * This constructor makes a migrator that logs the progress of the migrations.
+     */
+    public SchemaMigrator() {
+        this(SchemaMigrator::logProgress);
+    }
+
+    /**
+     * This constructor makes a migrator that notifies the progress to a listener.
+     * @param listener the listener that is notified about the progress
+     */
+    public SchemaMigrator(MigrationListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * This method applies, in order, all the migrations that are not applied yet.<br>
+     * The version of the schema is updated after every migration, so if the program is stopped in the middle
+     * of a migration only that migration is applied again at the next start.
+     * @param connection the connection to the database
+     * @throws SQLException in case something goes wrong
+     */
+    public void migrate(Connection connection) throws SQLException {
+        int currentVersion = getCurrentVersion(connection);
+        for (Migration migration : MIGRATIONS) {
+            if (migration.getVersion() > currentVersion) {
+                LOGGER.log(Level.INFO, "Migrating the database to version {0}: {1}",
+                        new Object[] {migration.getVersion(), migration.getDescription()});
+                migration.migrate(connection, listener);
+                setCurrentVersion(connection, migration.getVersion());
+                currentVersion = migration.getVersion();
+            }
+        }
+    }
+
+    /**
+     * This method returns the latest version of the schema.
+     * @return the latest version of the schema
+     */
+    public static int getLatestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).getVersion();
+    }
+
+    /**
+     * This method reads the current version of the schema.
+     * @param connection the connection to the database
+     * @return the current version, 0 if the database is empty
+     * @throws SQLException in case something goes wrong
+     */
+    private static int getCurrentVersion(Connection connection) throws SQLException {
+        boolean legacy = !tableExists(connection, "SCHEMA_VERSION") && tableExists(connection, "TIME_TRACKER");
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(CREATE_SCHEMA_VERSION);
+            try (ResultSet resultSet = statement.executeQuery(SELECT_SCHEMA_VERSION)) {
+                int version = resultSet.next() ? resultSet.getInt(1) : 0;
+                if (version == 0 && legacy) {
+                    version = 1;
+                    setCurrentVersion(connection, version);
+                }
+                return version;
+            }
+        }
+    }
+
+    /**
+     * This method stores the current version of the schema.
+     * @param connection the connection to the database
+     * @param version the version to store
+     * @throws SQLException in case something goes wrong
+     */
+    private static void setCurrentVersion(Connection connection, int version) throws SQLException {
+        try (Statement delete = connection.createStatement();
+             PreparedStatement insert = connection.prepareStatement(INSERT_SCHEMA_VERSION)) {
+            delete.executeUpdate(DELETE_SCHEMA_VERSION);
+            insert.setInt(1, version);
+            insert.executeUpdate();
+        }
+    }
+
+    /**
+     * This method checks if a table exists in the database.
+     * @param connection the connection to the database
+     * @param tableName the name of the table
+     * @return true if the table exists, false otherwise
+     * @throws SQLException in case something goes wrong
+     */
+    static boolean tableExists(Connection connection, String tableName) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet resultSet = metaData.getTables(null, null, tableName, new String[] {"TABLE", "BASE TABLE"})) {
+            return resultSet.next();
+        }
+    }
+
+    /**
+     * This is the default listener, it just logs the progress.
+     * @param migration the migration that is running
+     * @param done the number of rows already migrated
+     * @param total the total number of rows that need to be migrated
+     */
+    private static void logProgress(Migration migration, long done, long total) {
+        LOGGER.log(Level.INFO, "Migration to version {0}: {1}/{2} rows",
+                new Object[] {migration.getVersion(), done, total});
+    }
+
+}
@@ -0,0 +1,188 @@
+package controller.persistence.database.migration;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+
+/**
+ * This migration moves the task names in a dictionary:
+ * <ul>
+ *     <li>The TASK_NAMES table contains every task name once, with an integer id; a name can be up to
+ *     255 characters</li>
+ *     <li>TIME_TRACKER references the name with the TASK_NAME_ID column, the TASK_NAME column is dropped</li>
+ *     <li>DAILY_ROLLUP is made again with TASK_NAME_ID instead of TASK_NAME</li>
+ * </ul>
+ * The ids are written in batches of rows, every batch is committed and notified to the listener. Every step
+ * can be executed again, so if the program is stopped in the middle of the migration, the migration just
+ * continues at the next start.
+ * @author Patrich Tivoli
+ */
+class TaskNamesMigration implements Migration {
+
+    private static final int BATCH_SIZE = 5000;
+
+    private static final String CREATE_TASK_NAMES = "CREATE TABLE IF NOT EXISTS TASK_NAMES ( ID INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, NAME VARCHAR(255) NOT NULL UNIQUE )";
+    private static final String FILL_TASK_NAMES = "INSERT INTO TASK_NAMES ( NAME ) SELECT DISTINCT TASK_NAME FROM TIME_TRACKER WHERE TASK_NAME NOT IN ( SELECT NAME FROM TASK_NAMES )";
+    private static final String ADD_TASK_NAME_ID = "ALTER TABLE TIME_TRACKER ADD COLUMN IF NOT EXISTS TASK_NAME_ID INT";
+    private static final String COUNT_ROWS = "SELECT COUNT(*) FROM TIME_TRACKER WHERE TASK_NAME_ID IS NULL";
+    private static final String SELECT_FIRST_BOUNDARY = "SELECT START_TIME FROM TIME_TRACKER ORDER BY START_TIME OFFSET ? ROWS FETCH NEXT 1 ROW ONLY";
+    private static final String SELECT_NEXT_BOUNDARY = "SELECT START_TIME FROM TIME_TRACKER WHERE START_TIME > ? ORDER BY START_TIME OFFSET ? ROWS FETCH NEXT 1 ROW ONLY";
+    private static final String SET_TASK_NAME_ID = "UPDATE TIME_TRACKER T SET TASK_NAME_ID = ( SELECT N.ID FROM TASK_NAMES N WHERE N.NAME = T.TASK_NAME ) WHERE TASK_NAME_ID IS NULL";
+    private static final String AND_START_TIME_AFTER = " AND START_TIME > ?";
+    private static final String AND_START_TIME_TO = " AND START_TIME <= ?";
+    private static final String SET_TASK_NAME_ID_NOT_NULL = "ALTER TABLE TIME_TRACKER ALTER COLUMN TASK_NAME_ID SET NOT NULL";
+    private static final String ADD_FOREIGN_KEY = "ALTER TABLE TIME_TRACKER ADD CONSTRAINT IF NOT EXISTS FK_TIME_TRACKER_TASK_NAME FOREIGN KEY ( TASK_NAME_ID ) REFERENCES TASK_NAMES ( ID )";
+    private static final String DROP_TASK_NAME = "ALTER TABLE TIME_TRACKER DROP COLUMN IF EXISTS TASK_NAME";
+    private static final String DROP_DAILY_ROLLUP = "DROP TABLE IF EXISTS DAILY_ROLLUP";
+    private static final String CREATE_DAILY_ROLLUP = "CREATE TABLE DAILY_ROLLUP ( START_DAY DATE NOT NULL, TASK_NAME_ID INT NOT NULL, TOTAL BIGINT NOT NULL, SEGMENTS BIGINT NOT NULL, PRIMARY KEY ( START_DAY, TASK_NAME_ID ), CONSTRAINT FK_DAILY_ROLLUP_TASK_NAME FOREIGN KEY ( TASK_NAME_ID ) REFERENCES TASK_NAMES ( ID ) )";
+    private static final String FILL_DAILY_ROLLUP = "INSERT INTO DAILY_ROLLUP ( START_DAY, TASK_NAME_ID, TOTAL, SEGMENTS ) SELECT CAST(START_TIME AS DATE), TASK_NAME_ID, SUM(DURATION), COUNT(*) FROM TIME_TRACKER GROUP BY CAST(START_TIME AS DATE), TASK_NAME_ID";
+
+    @Override
+    public int getVersion() {
+        return 4;
+    }
+
+    @Override
+    public String getDescription() {
+        return "TASK_NAMES dictionary referenced by TIME_TRACKER and DAILY_ROLLUP";
+    }
+
+    /**
+     * This method applies the migration.<br>
+     * If the TASK_NAME column does not exist anymore, the ids are already written, so only the last steps
+     * are executed.
+     * @param connection the connection to the database
+     * @param listener the listener that is notified about the progress
+     * @throws SQLException in case something goes wrong
+     */
+    @Override
+    public void migrate(Connection connection, MigrationListener listener) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(CREATE_TASK_NAMES);
+            if (columnExists(connection, "TIME_TRACKER", "TASK_NAME")) {
+                statement.executeUpdate(FILL_TASK_NAMES);
+                statement.executeUpdate(ADD_TASK_NAME_ID);
+                setTaskNameIds(connection, listener);
+                statement.executeUpdate(SET_TASK_NAME_ID_NOT_NULL);
+                statement.executeUpdate(ADD_FOREIGN_KEY);
+                statement.executeUpdate(DROP_TASK_NAME);
+            }
+            statement.executeUpdate(DROP_DAILY_ROLLUP);
+            statement.executeUpdate(CREATE_DAILY_ROLLUP);
+            statement.executeUpdate(FILL_DAILY_ROLLUP);
+        }
+    }
+
+    /**
+     * This method writes the id of the name in every row that does not have it yet.<br>
+     * The rows are updated in order of START_TIME, one range of rows at a time, so every transaction has
+     * a limited size and the ranges are found through the primary key.
+     * @param connection the connection to the database
+     * @param listener the listener that is notified about the progress
+     * @throws SQLException in case something goes wrong
+     */
+    private void setTaskNameIds(Connection connection, MigrationListener listener) throws SQLException {
+        long total = countRows(connection);
+        long done = 0;
+        LocalDateTime lastStartTime = null;
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            listener.onProgress(this, done, total);
+            LocalDateTime boundary;
+            do {
+                boundary = findBoundary(connection, lastStartTime);
+                done += updateRange(connection, lastStartTime, boundary);
+                connection.commit();
+                listener.onProgress(this, done, total);
+                lastStartTime = boundary;
+            } while (boundary != null);
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * This method finds the start time of the last row of the next batch.
+     * @param connection the connection to the database
+     * @param lastStartTime the start time of the last row of the previous batch, null for the first batch
+     * @return the start time of the last row of the batch, null if the batch contains all the remaining rows
+     * @throws SQLException in case something goes wrong
+     */
+    private static LocalDateTime findBoundary(Connection connection, LocalDateTime lastStartTime) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(lastStartTime == null ? SELECT_FIRST_BOUNDARY : SELECT_NEXT_BOUNDARY)) {
+            int index = 1;
+            if (lastStartTime != null) {
+                select.setObject(index++, lastStartTime);
+            }
+            select.setInt(index, BATCH_SIZE - 1);
+            try (ResultSet resultSet = select.executeQuery()) {
+                return resultSet.next() ? resultSet.getObject(1, LocalDateTime.class) : null;
+            }
+        }
+    }
+
+    /**
+     * This method writes the id of the name in the rows of a range that do not have it yet.
+     * @param connection the connection to the database
+     * @param after the rows must start after this date and time, null for no limit
+     * @param to the rows must start at or before this date and time, null for no limit
+     * @return the number of rows updated
+     * @throws SQLException in case something goes wrong
+     */
+    private static int updateRange(Connection connection, LocalDateTime after, LocalDateTime to) throws SQLException {
+        StringBuilder sql = new StringBuilder(SET_TASK_NAME_ID);
+        if (after != null) {
+            sql.append(AND_START_TIME_AFTER);
+        }
+        if (to != null) {
+            sql.append(AND_START_TIME_TO);
+        }
+        try (PreparedStatement update = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            if (after != null) {
+                update.setObject(index++, after);
+            }
+            if (to != null) {
+                update.setObject(index, to);
+            }
+            return update.executeUpdate();
+        }
+    }
+
+    /**
+     * This method counts the rows without the id of the name.
+     * @param connection the connection to the database
+     * @return the number of rows
+     * @throws SQLException in case something goes wrong
+     */
+    private static long countRows(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(COUNT_ROWS)) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * This method checks if a column exists in a table.
+     * @param connection the connection to the database
+     * @param tableName the name of the table
+     * @param columnName the name of the column
+     * @return true if the column exists, false otherwise
+     * @throws SQLException in case something goes wrong
+     */
+    private static boolean columnExists(Connection connection, String tableName, String columnName) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet resultSet = metaData.getColumns(null, null, tableName, columnName)) {
+            return resultSet.next();
+        }
+    }
+
+}
@@ -0,0 +1,174 @@
+package controller.persistence.database.migration;
+
+import exceptions.TimeTrackerException;
+import model.TimeUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * This migration moves the TIME_TRACKER table from the VARCHAR columns to typed columns:
+ * <ul>
+ *     <li>START_TIME and END_TIME become TIMESTAMP</li>
+ *     <li>DELTA (HH:mm:ss) becomes DURATION, the number of milliseconds as BIGINT</li>
+ *     <li>An index is added on END_TIME, START_TIME is already indexed by the primary key</li>
+ * </ul>
+ * The rows are copied in a new table in batches, every batch is committed and notified to the listener,
+ * then the old table is dropped and the new one takes its name.
+ * @author Patrich Tivoli
+ */
+class TypedColumnsMigration implements Migration {
+
+    private static final String NEW_TABLE = "TIME_TRACKER_V2";
+    private static final int BATCH_SIZE = 5000;
+
+    private static final String DROP_NEW_TABLE = "DROP TABLE IF EXISTS " + NEW_TABLE;
+    private static final String CREATE_NEW_TABLE = "CREATE TABLE " + NEW_TABLE + " ( START_TIME TIMESTAMP NOT NULL PRIMARY KEY, END_TIME TIMESTAMP NOT NULL, TASK_NAME VARCHAR(50) NOT NULL, DURATION BIGINT NOT NULL )";
+    private static final String COUNT_ROWS = "SELECT COUNT(*) FROM TIME_TRACKER";
+    private static final String SELECT_FIRST_BATCH = "SELECT START_TIME, END_TIME, TASK_NAME, DELTA FROM TIME_TRACKER ORDER BY START_TIME LIMIT ?";
+    private static final String SELECT_NEXT_BATCH = "SELECT START_TIME, END_TIME, TASK_NAME, DELTA FROM TIME_TRACKER WHERE START_TIME > ? ORDER BY START_TIME LIMIT ?";
+    private static final String INSERT_ROW = "INSERT INTO " + NEW_TABLE + " ( START_TIME, END_TIME, TASK_NAME, DURATION ) VALUES ( ?, ?, ?, ? )";
+    private static final String DROP_OLD_TABLE = "DROP TABLE TIME_TRACKER";
+    private static final String RENAME_NEW_TABLE = "ALTER TABLE " + NEW_TABLE + " RENAME TO TIME_TRACKER";
+    private static final String CREATE_END_TIME_INDEX = "CREATE INDEX IF NOT EXISTS IDX_TIME_TRACKER_END_TIME ON TIME_TRACKER ( END_TIME )";
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+
+    @Override
+    public String getDescription() {
+        return "TIMESTAMP columns, duration in milliseconds and index on END_TIME";
+    }
+
+    /**
+     * This method applies the migration.<br>
+     * If the old table does not exist but the new one does, the program was stopped after dropping the
+     * old table, so the copy is already completed and only the rename is needed.
+     * @param connection the connection to the database
+     * @param listener the listener that is notified about the progress
+     * @throws SQLException in case something goes wrong
+     */
+    @Override
+    public void migrate(Connection connection, MigrationListener listener) throws SQLException {
+        boolean oldTableExists = SchemaMigrator.tableExists(connection, "TIME_TRACKER");
+        try (Statement statement = connection.createStatement()) {
+            if (oldTableExists) {
+                statement.executeUpdate(DROP_NEW_TABLE);
+                statement.executeUpdate(CREATE_NEW_TABLE);
+                copyRows(connection, listener);
+                statement.executeUpdate(DROP_OLD_TABLE);
+            }
+            statement.executeUpdate(RENAME_NEW_TABLE);
+            statement.executeUpdate(CREATE_END_TIME_INDEX);
+        }
+    }
+
+    /**
+     * This method copies all the rows from the old table to the new one, converting them.<br>
+     * The rows are read in order of START_TIME, one batch at a time, so that the memory used does not depend
+     * on the size of the database.
+     * @param connection the connection to the database
+     * @param listener the listener that is notified about the progress
+     * @throws SQLException in case something goes wrong
+     */
+    private void copyRows(Connection connection, MigrationListener listener) throws SQLException {
+        long total = countRows(connection);
+        long done = 0;
+        String lastStartTime = null;
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement firstBatch = connection.prepareStatement(SELECT_FIRST_BATCH);
+             PreparedStatement nextBatch = connection.prepareStatement(SELECT_NEXT_BATCH);
+             PreparedStatement insert = connection.prepareStatement(INSERT_ROW)) {
+            listener.onProgress(this, done, total);
+            int copied;
+            do {
+                PreparedStatement select;
+                if (lastStartTime == null) {
+                    select = firstBatch;
+                    select.setInt(1, BATCH_SIZE);
+                } else {
+                    select = nextBatch;
+                    select.setString(1, lastStartTime);
+                    select.setInt(2, BATCH_SIZE);
+                }
+                copied = 0;
+                try (ResultSet resultSet = select.executeQuery()) {
+                    while (resultSet.next()) {
+                        lastStartTime = resultSet.getString("START_TIME");
+                        bindRow(insert, lastStartTime, resultSet.getString("END_TIME"),
+                                resultSet.getString("TASK_NAME"), resultSet.getString("DELTA"));
+                        insert.addBatch();
+                        copied++;
+                    }
+                }
+                if (copied > 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                    done += copied;
+                    listener.onProgress(this, done, total);
+                }
+            } while (copied == BATCH_SIZE);
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * This method counts the rows of the old table.
+     * @param connection the connection to the database
+     * @return the number of rows
+     * @throws SQLException in case something goes wrong
+     */
+    private static long countRows(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(COUNT_ROWS)) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * This method converts a row of the old table and sets it as parameters of the insert statement.<br>
+     * If the delta cannot be parsed, the duration is computed from the start and the end time. If the start or
+     * the end time cannot be parsed, the migration fails: the old table is left as it is, so no task is lost.
+     * @param insert the insert statement
+     * @param startTime the start time as ISO string
+     * @param endTime the end time as ISO string
+     * @param taskName the name of the task
+     * @param delta the delta structured in this way: HH:mm:ss
+     * @throws SQLException in case something goes wrong or the start or the end time cannot be parsed
+     */
+    private static void bindRow(PreparedStatement insert, String startTime, String endTime, String taskName, String delta) throws SQLException {
+        LocalDateTime start;
+        LocalDateTime end;
+        try {
+            start = LocalDateTime.parse(startTime);
+            end = LocalDateTime.parse(endTime);
+        } catch (DateTimeParseException e) {
+            throw new SQLException("The task that starts at " + startTime + " and ends at " + endTime
+                    + " has a date that cannot be read", e);
+        }
+        long duration;
+        try {
+            duration = TimeUtils.parseDuration(delta);
+        } catch (TimeTrackerException e) {
+            duration = Duration.between(start, end).toMillis();
+        }
+        insert.setObject(1, start);
+        insert.setObject(2, end);
+        insert.setString(3, taskName);
+        insert.setLong(4, duration);
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * This package contains the versioned migrations of the H2 database schema.
+ */
+package controller.persistence.database.migration;
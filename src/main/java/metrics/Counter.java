@@ -0,0 +1,50 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is a counter that only grows, e.g. the number of tasks saved.<br>
+ * It is a {@link LongAdder LongAdder}, so many threads can increment it without waiting for each other.
+ * @author Patrich Tivoli
+ * @see MetricsRegistry#counter(String)
+ */
+public class Counter implements Metric, CounterMBean {
+
+    private final String name;
+    private final LongAdder count = new LongAdder();
+
+    Counter(String name) {
+        this.name = name;
+    }
+
+    /**
+     * This method adds one to the counter.
+     */
+    public void increment() {
+        count.increment();
+    }
+
+    /**
+     * This method adds a number to the counter.
+     * @param value the number
+     */
+    public void add(long value) {
+        count.add(value);
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public StringBuilder appendValues(StringBuilder builder) {
+        return builder.append("count=").append(getCount());
+    }
+
+}
@@ -0,0 +1,14 @@
+package metrics;
+
+/**
+ * This interface is the management interface of a {@link Counter Counter}.
+ * @author Patrich Tivoli
+ */
+public interface CounterMBean {
+
+    /**
+     * @return the value of the counter
+     */
+    long getCount();
+
+}
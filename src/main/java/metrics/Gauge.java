@@ -0,0 +1,43 @@
+package metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * This class is a value that is read only when it is requested, e.g. the number of tasks waiting to be saved.
+ * @author Patrich Tivoli
+ * @see MetricsRegistry#gauge(String, LongSupplier)
+ */
+public class Gauge implements Metric, GaugeMBean {
+
+    private final String name;
+    private volatile LongSupplier supplier;
+
+    Gauge(String name, LongSupplier supplier) {
+        this.name = name;
+        this.supplier = supplier;
+    }
+
+    /**
+     * This method changes where the value is read, e.g. when the object measured is made again.
+     * @param supplier the function that reads the value, it must be fast and thread safe
+     */
+    void setSupplier(LongSupplier supplier) {
+        this.supplier = supplier;
+    }
+
+    @Override
+    public long getValue() {
+        return supplier.getAsLong();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public StringBuilder appendValues(StringBuilder builder) {
+        return builder.append("value=").append(getValue());
+    }
+
+}
@@ -0,0 +1,14 @@
+package metrics;
+
+/**
+ * This interface is the management interface of a {@link Gauge Gauge}.
+ * @author Patrich Tivoli
+ */
+public interface GaugeMBean {
+
+    /**
+     * @return the current value of the gauge
+     */
+    long getValue();
+
+}
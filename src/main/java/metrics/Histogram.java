@@ -0,0 +1,168 @@
+package metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is a histogram of latencies, used to know not only the average time of an operation but also how
+ * slow the slowest ones are.<br>
+ * The latencies are recorded in nanoseconds in {@value #SUB_BUCKETS} buckets for every power of two, so every
+ * bucket is at most {@value #SUB_BUCKETS}th of its values wide and a percentile is given with an error of less
+ * than 7%. The latencies under {@value #SUB_BUCKETS} nanoseconds have a bucket each.<br>
+ * Recording a latency is just an increment of an {@link AtomicLongArray AtomicLongArray} and of some
+ * {@link LongAdder adders}, no lock is taken and no object is made. The percentiles are computed from a copy of
+ * the buckets taken while the latencies are recorded, so they can be a little inconsistent with the count.
+ * @author Patrich Tivoli
+ * @see MetricsRegistry#histogram(String)
+ */
+public class Histogram implements Metric, HistogramMBean {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * The number of buckets: the first {@value #SUB_BUCKETS} values, then {@value #SUB_BUCKETS} buckets for
+     * every power of two up to the largest long.
+     */
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    Histogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * This method records a latency.
+     * @param nanos the latency in nanoseconds, a negative one is recorded as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(getBucket(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * This method records the time passed since a moment, it is used like this:<br>
+     * <code>long start = System.nanoTime();<br>
+     * ...<br>
+     * histogram.recordSince(start);</code>
+     * @param startNanos the moment, taken from {@link System#nanoTime() nanoTime}
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * This method returns a percentile of the latencies recorded.
+     * @param percentile the percentile, from 0 to 100
+     * @return the latency in nanoseconds, it is the largest value of the bucket of the percentile but never
+     *         more than the longest latency; 0 if no latency is recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        int bucket = 0;
+        while (bucket < BUCKETS - 1 && (seen += snapshot[bucket]) < rank) {
+            bucket++;
+        }
+        return Math.min(getUpperBound(bucket), max.get());
+    }
+
+    /**
+     * This method returns the bucket of a latency.
+     * @param value the latency, not negative
+     * @return the position of the bucket
+     */
+    static int getBucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * This method returns the largest latency of a bucket.
+     * @param bucket the position of the bucket
+     * @return the latency
+     */
+    static long getUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public long getMeanMicros() {
+        long n = count.sum();
+        return n == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(sum.sum() / n);
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(max.get());
+    }
+
+    @Override
+    public long getP50Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(getPercentileNanos(50));
+    }
+
+    @Override
+    public long getP95Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(getPercentileNanos(95));
+    }
+
+    @Override
+    public long getP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(getPercentileNanos(99));
+    }
+
+    @Override
+    public long getP999Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(getPercentileNanos(99.9));
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public StringBuilder appendValues(StringBuilder builder) {
+        return builder.append("count=").append(getCount())
+                .append("\tmeanMicros=").append(getMeanMicros())
+                .append("\tp50Micros=").append(getP50Micros())
+                .append("\tp95Micros=").append(getP95Micros())
+                .append("\tp99Micros=").append(getP99Micros())
+                .append("\tp999Micros=").append(getP999Micros())
+                .append("\tmaxMicros=").append(getMaxMicros());
+    }
+
+}
@@ -0,0 +1,45 @@
+package metrics;
+
+/**
+ * This interface is the management interface of a {@link Histogram Histogram}, all the latencies are in
+ * microseconds.
+ * @author Patrich Tivoli
+ */
+public interface HistogramMBean {
+
+    /**
+     * @return the number of latencies recorded
+     */
+    long getCount();
+
+    /**
+     * @return the average latency
+     */
+    long getMeanMicros();
+
+    /**
+     * @return the longest latency
+     */
+    long getMaxMicros();
+
+    /**
+     * @return the median latency
+     */
+    long getP50Micros();
+
+    /**
+     * @return the 95th percentile of the latencies
+     */
+    long getP95Micros();
+
+    /**
+     * @return the 99th percentile of the latencies
+     */
+    long getP99Micros();
+
+    /**
+     * @return the 99.9th percentile of the latencies
+     */
+    long getP999Micros();
+
+}
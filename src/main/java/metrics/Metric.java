@@ -0,0 +1,23 @@
+package metrics;
+
+/**
+ * This interface is a metric of the program, registered in the {@link MetricsRegistry MetricsRegistry}.
+ * @author Patrich Tivoli
+ */
+public interface Metric {
+
+    /**
+     * This method returns the name of the metric, e.g. <code>taskDao.saveTasks</code>.
+     * @return the name
+     */
+    String getName();
+
+    /**
+     * This method appends the current values of the metric to a {@link StringBuilder StringBuilder}, as
+     * <code>key=value</code> pairs separated by tabs.
+     * @param builder the builder where the values are appended
+     * @return the builder
+     */
+    StringBuilder appendValues(StringBuilder builder);
+
+}
@@ -0,0 +1,133 @@
+package metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class contains all the metrics of the program.<br>
+ * A metric is made the first time its name is requested and then the same metric is always returned, so the
+ * classes can keep it in a static field. Every metric is also registered in the platform
+ * {@link MBeanServer MBeanServer} with the name <code>timeTracker:type=Counter|Gauge|Histogram,name=...</code>,
+ * so it can be read with JConsole or VisualVM while the program runs. The MBeans are registered by a background
+ * thread, because the first registration starts the platform {@link MBeanServer MBeanServer}, which takes hundreds
+ * of milliseconds, and the metrics are made while the program starts.<br>
+ * If the MBean cannot be registered the metric works the same, the problem is just logged: the metrics never stop
+ * the program.
+ * @author Patrich Tivoli
+ * @see MetricsReporter
+ */
+public class MetricsRegistry {
+
+    private static final Logger LOGGER = Logger.getLogger(MetricsRegistry.class.getName());
+    private static final String DOMAIN = "timeTracker";
+
+    private static final Map<String, Metric> METRICS = new ConcurrentHashMap<>();
+    private static final ExecutorService REGISTRATION = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "metrics-registration");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Private constructor to hide the implicit one.
+     */
+    private MetricsRegistry() { }
+
+    /**
+     * This method returns the counter with a name, if it does not exist it is made.
+     * @param name the name of the counter
+     * @return the counter
+     * @throws IllegalArgumentException if there is another kind of metric with the same name
+     */
+    public static Counter counter(String name) {
+        return getOrRegister(name, Counter.class, Counter::new);
+    }
+
+    /**
+     * This method returns the histogram of latencies with a name, if it does not exist it is made.
+     * @param name the name of the histogram
+     * @return the histogram
+     * @throws IllegalArgumentException if there is another kind of metric with the same name
+     */
+    public static Histogram histogram(String name) {
+        return getOrRegister(name, Histogram.class, Histogram::new);
+    }
+
+    /**
+     * This method makes a gauge with a name, if it already exists its value is read from the new supplier.
+     * @param name the name of the gauge
+     * @param supplier the function that reads the value, it must be fast and thread safe
+     * @return the gauge
+     * @throws IllegalArgumentException if there is another kind of metric with the same name
+     */
+    public static Gauge gauge(String name, LongSupplier supplier) {
+        Gauge gauge = getOrRegister(name, Gauge.class, gaugeName -> new Gauge(gaugeName, supplier));
+        gauge.setSupplier(supplier);
+        return gauge;
+    }
+
+    /**
+     * This method returns all the metrics sorted by name.
+     * @return the metrics
+     */
+    public static List<Metric> getMetrics() {
+        List<Metric> metrics = new ArrayList<>(METRICS.values());
+        metrics.sort(Comparator.comparing(Metric::getName));
+        return metrics;
+    }
+
+    /**
+     * This method returns the metric with a name, if it does not exist it is made and registered as an MBean.
+     * @param name the name of the metric
+     * @param type the kind of metric
+     * @param factory the function that makes the metric
+     * @param <T> the kind of metric
+     * @return the metric
+     */
+    private static <T extends Metric> T getOrRegister(String name, Class<T> type, Function<String, T> factory) {
+        Metric metric = METRICS.get(name);
+        if (metric == null) {
+            metric = METRICS.computeIfAbsent(name, metricName -> {
+                T created = factory.apply(metricName);
+                REGISTRATION.execute(() -> registerMBean(created, type));
+                return created;
+            });
+        }
+        if (!type.isInstance(metric)) {
+            throw new IllegalArgumentException("The metric " + name + " is not a " + type.getSimpleName());
+        }
+        return type.cast(metric);
+    }
+
+    /**
+     * This method registers a metric in the platform {@link MBeanServer MBeanServer}.
+     * @param metric the metric
+     * @param type the kind of metric
+     */
+    private static void registerMBean(Metric metric, Class<? extends Metric> type) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type.getSimpleName()
+                    + ",name=" + ObjectName.quote(metric.getName()));
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(metric, objectName);
+            }
+        } catch (JMException | SecurityException e) {
+            LOGGER.log(Level.WARNING, "The metric " + metric.getName() + " cannot be published as an MBean", e);
+        }
+    }
+
+}
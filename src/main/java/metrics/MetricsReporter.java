@@ -0,0 +1,103 @@
+package metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class writes all the metrics in a file, one metric for every line:<br>
+ * <code>name&#9;type&#9;key=value&#9;key=value...</code><br>
+ * The file is written in a temporary file and then moved, so it always contains a complete copy of the metrics
+ * and it can be read at any time. The file is written only if the system property
+ * {@value #FILE_PROPERTY} is set, every {@value #INTERVAL_PROPERTY} seconds (by default
+ * {@value #DEFAULT_INTERVAL_SECONDS}).
+ * @author Patrich Tivoli
+ * @see MetricsRegistry
+ */
+public class MetricsReporter implements Runnable {
+
+    /**
+     * The name of the system property used to choose the file where the metrics are written.
+     */
+    public static final String FILE_PROPERTY = "timeTracker.metrics.file";
+    /**
+     * The name of the system property used to choose how many seconds pass between two writes of the file.
+     */
+    public static final String INTERVAL_PROPERTY = "timeTracker.metrics.intervalSeconds";
+
+    private static final long DEFAULT_INTERVAL_SECONDS = 60L;
+    private static final Logger LOGGER = Logger.getLogger(MetricsReporter.class.getName());
+
+    private final Path path;
+
+    /**
+     * This constructor makes a reporter that writes the metrics in a file.
+     * @param path the file
+     */
+    public MetricsReporter(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * This method writes the metrics periodically with a scheduler, if the system property
+     * {@value #FILE_PROPERTY} is set.
+     * @param scheduler the scheduler
+     * @return the reporter, null if the metrics are not written in a file
+     */
+    public static MetricsReporter schedule(ScheduledExecutorService scheduler) {
+        String file = System.getProperty(FILE_PROPERTY);
+        if (file == null || file.trim().isEmpty()) {
+            return null;
+        }
+        long interval = Math.max(1L, Long.getLong(INTERVAL_PROPERTY, DEFAULT_INTERVAL_SECONDS));
+        MetricsReporter reporter = new MetricsReporter(Paths.get(file));
+        scheduler.scheduleWithFixedDelay(reporter, interval, interval, TimeUnit.SECONDS);
+        return reporter;
+    }
+
+    /**
+     * This method writes the metrics in the file, the errors are logged because it is called by the scheduler.
+     */
+    @Override
+    public void run() {
+        try {
+            write();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "The metrics cannot be written in " + path, e);
+        }
+    }
+
+    /**
+     * This method writes the metrics in the file.
+     * @throws IOException in case something goes wrong
+     */
+    public void write() throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            StringBuilder line = new StringBuilder(256);
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                writer.write("# " + LocalDateTime.now() + System.lineSeparator());
+                for (Metric metric : MetricsRegistry.getMetrics()) {
+                    line.setLength(0);
+                    line.append(metric.getName()).append('\t').append(metric.getClass().getSimpleName()).append('\t');
+                    metric.appendValues(line).append(System.lineSeparator());
+                    writer.append(line);
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+}
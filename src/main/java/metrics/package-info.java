@@ -0,0 +1,5 @@
+/**
+ * This package contains the metrics of the program: counters, gauges and histograms of the latencies, published
+ * as MBeans and, if it is requested, written periodically in a file.
+ */
+package metrics;
\ No newline at end of file
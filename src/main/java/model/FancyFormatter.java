@@ -0,0 +1,48 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * This class writes dates, times and durations in the same way of {@link TimeUtils TimeUtils}, but it appends
+ * them to a {@link StringBuilder StringBuilder} that can be reused, so no temporary strings are made.<br>
+ * The date (e.g. <code>2023/01/31 </code>) is kept until a date and time of another day is written, so
+ * writing many dates and times of the same day, like the rows of a report, costs just the time part.<br>
+ * This class is not thread safe: every thread needs its own formatter.
+ * @author Patrich Tivoli
+ */
+public class FancyFormatter {
+
+    private final StringBuilder datePrefix = new StringBuilder(16);
+    private LocalDate cachedDate;
+
+    /**
+     * This method appends a date and time structured in this way: YYYY/MM/DD HH:mm:ss.
+     * @param builder the builder where the date and time is appended
+     * @param localDateTime the date and time
+     * @return the builder
+     * @see TimeUtils#getFancyDateTime(LocalDateTime)
+     */
+    public StringBuilder appendDateTime(StringBuilder builder, LocalDateTime localDateTime) {
+        LocalDate date = localDateTime.toLocalDate();
+        if (!date.equals(cachedDate)) {
+            datePrefix.setLength(0);
+            TimeUtils.appendFancyDate(datePrefix, date).append(' ');
+            cachedDate = date;
+        }
+        builder.append(datePrefix);
+        return TimeUtils.appendFancyTime(builder, localDateTime.toLocalTime());
+    }
+
+    /**
+     * This method appends a duration structured in this way: HH:mm:ss.
+     * @param builder the builder where the duration is appended
+     * @param durationMillis the duration in milliseconds
+     * @return the builder
+     * @see TimeUtils#getFancyDuration(long)
+     */
+    public StringBuilder appendDuration(StringBuilder builder, long durationMillis) {
+        return TimeUtils.appendFancyDuration(builder, durationMillis);
+    }
+
+}
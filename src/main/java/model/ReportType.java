@@ -0,0 +1,55 @@
+package model;
+
+/**
+ * This enum represents the kind of report that can be generated: the list of all the tasks or
+ * the total time spent grouped by task name, day, ISO week or month.
+ * @author Patrich Tivoli
+ */
+public enum ReportType {
+
+    /**
+     * A line for every task.
+     */
+    TASKS("reportTasks", "Task"),
+    /**
+     * A line for every task name.
+     */
+    TASK_NAME("reportByTaskName", "Task"),
+    /**
+     * A line for every day, structured in this way: YYYY/MM/DD.
+     */
+    DAY("reportByDay", "Day"),
+    /**
+     * A line for every ISO week, structured in this way: YYYY-Www.
+     */
+    WEEK("reportByWeek", "Week"),
+    /**
+     * A line for every month, structured in this way: YYYY/MM.
+     */
+    MONTH("reportByMonth", "Month");
+
+    private final String bundleKey;
+    private final String label;
+
+    ReportType(String bundleKey, String label) {
+        this.bundleKey = bundleKey;
+        this.label = label;
+    }
+
+    /**
+     * This method returns the key of the translation of the name of this report.
+     * @return the key of the resource bundle
+     */
+    public String getBundleKey() {
+        return bundleKey;
+    }
+
+    /**
+     * This method returns the label used in the report for the value that groups the tasks.
+     * @return the label of the group
+     */
+    public String getLabel() {
+        return label;
+    }
+
+}
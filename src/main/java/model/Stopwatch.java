@@ -0,0 +1,67 @@
+package model;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the time spent on a task.<br>
+ * The time is taken from {@link System#nanoTime() nanoTime}, the elapsed time is always computed from the
+ * last start, so it does not depend on how often or how late it is read and it is not affected by the
+ * changes of the system clock.<br>
+ * The stopwatch can be paused and resumed: the time spent in pause is not counted. It can be used by
+ * more threads, e.g. it is paused by the event dispatch thread while the scheduler reads it.
+ * @author Patrich Tivoli
+ */
+public final class Stopwatch {
+
+    private long startNanos;
+    private long pausedElapsedNanos;
+    private boolean paused;
+
+    /**
+     * This constructor starts the stopwatch.
+     */
+    public Stopwatch() {
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * This method returns the time elapsed since the start, without the time spent in pause.
+     * @return the elapsed time in milliseconds
+     */
+    public synchronized long getElapsedMillis() {
+        long elapsedNanos = pausedElapsedNanos;
+        if (!paused) {
+            elapsedNanos += System.nanoTime() - startNanos;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    /**
+     * This method pauses the stopwatch, if it is already paused nothing changes.
+     */
+    public synchronized void pause() {
+        if (!paused) {
+            pausedElapsedNanos += System.nanoTime() - startNanos;
+            paused = true;
+        }
+    }
+
+    /**
+     * This method restarts the stopwatch after a pause, if it is not paused nothing changes.
+     */
+    public synchronized void resume() {
+        if (paused) {
+            startNanos = System.nanoTime();
+            paused = false;
+        }
+    }
+
+    /**
+     * This method tells if the stopwatch is paused.
+     * @return true if it is paused, false otherwise
+     */
+    public synchronized boolean isPaused() {
+        return paused;
+    }
+
+}
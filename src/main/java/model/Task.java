@@ -9,6 +9,7 @@ public class Task {
     private LocalDateTime endTime;
     private String taskName;
     private String delta;
+    private long duration;
 
     public Task(String name) {
         this.taskName = name;
@@ -41,11 +42,35 @@ public class Task {
 
     public void setDelta(String delta) {
         this.delta = delta;
+        this.duration = TimeUtils.parseDuration(delta);
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public void setDuration(long duration) {
+        this.duration = duration;
+        this.delta = TimeUtils.getFancyDuration(duration);
     }
 
     @Override
     public String toString() {
-        return "Task: " + taskName + "\t" + "Start: " + TimeUtils.getFancyDateTime(startTime) + "\t" + "End: " + TimeUtils.getFancyDateTime(endTime) + "\t" + "Delta: " + delta;
+        return appendTo(new StringBuilder(80), new FancyFormatter()).toString();
+    }
+
+    /**
+     * This method appends the same text of {@link Task#toString() toString} to a builder, the dates and times
+     * are written by the formatter, so many tasks can be written reusing the same builder and formatter.
+     * @param builder the builder where the task is appended
+     * @param formatter the formatter of the dates and times
+     * @return the builder
+     */
+    public StringBuilder appendTo(StringBuilder builder, FancyFormatter formatter) {
+        builder.append("Task: ").append(taskName).append("\tStart: ");
+        formatter.appendDateTime(builder, startTime).append("\tEnd: ");
+        formatter.appendDateTime(builder, endTime).append("\tDelta: ");
+        return builder.append(delta);
     }
 
     public String getDelta() {
@@ -0,0 +1,252 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * This class keeps many tasks in memory in a compact way, so the whole history can be analysed without
+ * reading the database again.<br>
+ * Every task is a row made of primitive values kept in columns: the start and the end in milliseconds since
+ * 1970-01-01T00:00 (see {@link TimeUtils#toEpochMillis(LocalDateTime) toEpochMillis}), the duration in
+ * milliseconds and the id of the task name. Every task name is kept only once in a dictionary, so a row
+ * takes 28 bytes, instead of the six objects of a {@link Task Task}.<br>
+ * The tasks are converted from and to {@link Task Task} only when they are added and when they are read back,
+ * the fraction of millisecond of the start and the end is lost.<br>
+ * While the tasks are added sorted by start, the range scans use a binary search; otherwise all the rows
+ * are checked.<br>
+ * This class is not thread safe.
+ * @author Patrich Tivoli
+ */
+public class TaskStore {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final List<String> taskNames = new ArrayList<>();
+    private final Map<String, Integer> taskNameIds = new HashMap<>();
+    private long[] startTimes;
+    private long[] endTimes;
+    private long[] durations;
+    private int[] nameIds;
+    private int size;
+    private boolean sortedByStart = true;
+
+    /**
+     * This constructor makes an empty store.
+     */
+    public TaskStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * This constructor makes an empty store with space for a given number of tasks, the store grows anyway
+     * if more tasks are added.
+     * @param capacity the number of tasks
+     */
+    public TaskStore(int capacity) {
+        int initialCapacity = Math.max(1, capacity);
+        startTimes = new long[initialCapacity];
+        endTimes = new long[initialCapacity];
+        durations = new long[initialCapacity];
+        nameIds = new int[initialCapacity];
+    }
+
+    /**
+     * This method adds a task at the end of the store.
+     * @param task the task
+     * @return the index of the row of the task
+     */
+    public int add(Task task) {
+        return add(TimeUtils.toEpochMillis(task.getStartTime()), TimeUtils.toEpochMillis(task.getEndTime()),
+                task.getDuration(), task.getTaskName());
+    }
+
+    /**
+     * This method adds a task at the end of the store.
+     * @param startMillis the start in milliseconds since 1970-01-01T00:00
+     * @param endMillis the end in milliseconds since 1970-01-01T00:00
+     * @param durationMillis the duration in milliseconds
+     * @param taskName the name of the task
+     * @return the index of the row of the task
+     */
+    public int add(long startMillis, long endMillis, long durationMillis, String taskName) {
+        if (size == startTimes.length) {
+            grow();
+        }
+        if (size > 0 && startMillis < startTimes[size - 1]) {
+            sortedByStart = false;
+        }
+        startTimes[size] = startMillis;
+        endTimes[size] = endMillis;
+        durations[size] = durationMillis;
+        nameIds[size] = getTaskNameId(taskName);
+        return size++;
+    }
+
+    /**
+     * This method returns the id of a task name, if the name is not in the dictionary yet it is added.
+     * @param taskName the name of the task
+     * @return the id of the name
+     */
+    public int getTaskNameId(String taskName) {
+        Integer id = taskNameIds.get(taskName);
+        if (id == null) {
+            id = taskNames.size();
+            taskNames.add(taskName);
+            taskNameIds.put(taskName, id);
+        }
+        return id;
+    }
+
+    /**
+     * This method returns the name of the task with the given id.
+     * @param taskNameId the id of the name
+     * @return the name of the task
+     */
+    public String getTaskName(int taskNameId) {
+        return taskNames.get(taskNameId);
+    }
+
+    /**
+     * This method returns the number of different task names.
+     * @return the size of the dictionary of the names
+     */
+    public int getTaskNameCount() {
+        return taskNames.size();
+    }
+
+    /**
+     * This method returns the number of tasks in the store.
+     * @return the number of tasks
+     */
+    public int size() {
+        return size;
+    }
+
+    public long getStartMillis(int row) {
+        checkRow(row);
+        return startTimes[row];
+    }
+
+    public long getEndMillis(int row) {
+        checkRow(row);
+        return endTimes[row];
+    }
+
+    public long getDuration(int row) {
+        checkRow(row);
+        return durations[row];
+    }
+
+    public int getTaskNameId(int row) {
+        checkRow(row);
+        return nameIds[row];
+    }
+
+    /**
+     * This method makes a {@link Task Task} from a row of the store.
+     * @param row the index of the row
+     * @return a new task
+     */
+    public Task getTask(int row) {
+        checkRow(row);
+        Task task = new Task(taskNames.get(nameIds[row]));
+        task.setStartTime(TimeUtils.fromEpochMillis(startTimes[row]));
+        task.setEndTime(TimeUtils.fromEpochMillis(endTimes[row]));
+        task.setDuration(durations[row]);
+        return task;
+    }
+
+    /**
+     * This method gives to a consumer the index of every row with a task that starts in a range.
+     * @param from the tasks must start at or after this date and time, null for no limit
+     * @param before the tasks must start before this date and time, null for no limit
+     * @param consumer the consumer of the indexes of the rows
+     */
+    public void forEachStartingIn(LocalDateTime from, LocalDateTime before, IntConsumer consumer) {
+        long fromMillis = from == null ? Long.MIN_VALUE : TimeUtils.toEpochMillis(from);
+        long beforeMillis = before == null ? Long.MAX_VALUE : TimeUtils.toEpochMillis(before);
+        if (sortedByStart) {
+            for (int row = lowerBound(fromMillis); row < size && startTimes[row] < beforeMillis; row++) {
+                consumer.accept(row);
+            }
+        } else {
+            for (int row = 0; row < size; row++) {
+                if (startTimes[row] >= fromMillis && startTimes[row] < beforeMillis) {
+                    consumer.accept(row);
+                }
+            }
+        }
+    }
+
+    /**
+     * This method computes the total duration of the tasks that start in a range.
+     * @param from the tasks must start at or after this date and time, null for no limit
+     * @param before the tasks must start before this date and time, null for no limit
+     * @return the total duration in milliseconds
+     */
+    public long getTotalDuration(LocalDateTime from, LocalDateTime before) {
+        long[] total = new long[1];
+        forEachStartingIn(from, before, row -> total[0] += durations[row]);
+        return total[0];
+    }
+
+    /**
+     * This method computes the total duration of the tasks that start in a range, for every task name.
+     * @param from the tasks must start at or after this date and time, null for no limit
+     * @param before the tasks must start before this date and time, null for no limit
+     * @return the total duration in milliseconds, the index of the array is the id of the task name
+     * @see TaskStore#getTaskName(int)
+     */
+    public long[] getTotalDurationByTaskName(LocalDateTime from, LocalDateTime before) {
+        long[] totals = new long[taskNames.size()];
+        forEachStartingIn(from, before, row -> totals[nameIds[row]] += durations[row]);
+        return totals;
+    }
+
+    /**
+     * This method finds the first row that starts at or after a given time, the rows must be sorted by start.
+     * @param startMillis the start in milliseconds since 1970-01-01T00:00
+     * @return the index of the row, the size of the store if there is not
+     */
+    private int lowerBound(long startMillis) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (startTimes[middle] < startMillis) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * This method makes the columns bigger, the capacity is doubled.
+     */
+    private void grow() {
+        int newCapacity = startTimes.length * 2;
+        startTimes = Arrays.copyOf(startTimes, newCapacity);
+        endTimes = Arrays.copyOf(endTimes, newCapacity);
+        durations = Arrays.copyOf(durations, newCapacity);
+        nameIds = Arrays.copyOf(nameIds, newCapacity);
+    }
+
+    /**
+     * This method checks that a row exists.
+     * @param row the index of the row
+     * @throws IndexOutOfBoundsException if the row does not exist
+     */
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " does not exist, the size is " + size);
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package model;
+
+/**
+ * This class is a line of a summary report: the total time spent on a group of tasks,
+ * such as all the tasks with the same name or all the tasks of the same day.
+ * @author Patrich Tivoli
+ * @see ReportType
+ */
+public class TaskSummary {
+
+    private final ReportType reportType;
+    private final String group;
+    private final long totalMillis;
+    private final long count;
+
+    public TaskSummary(ReportType reportType, String group, long totalMillis, long count) {
+        this.reportType = reportType;
+        this.group = group;
+        this.totalMillis = totalMillis;
+        this.count = count;
+    }
+
+    public ReportType getReportType() {
+        return reportType;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getAverageMillis() {
+        return count == 0 ? 0 : totalMillis / count;
+    }
+
+    @Override
+    public String toString() {
+        return reportType.getLabel() + ": " + group + "\t" + "Total: " + TimeUtils.getFancyDuration(totalMillis) + "\t" + "Count: " + count + "\t" + "Average: " + TimeUtils.getFancyDuration(getAverageMillis());
+    }
+
+}
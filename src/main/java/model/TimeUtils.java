@@ -1,8 +1,11 @@
 package model;
 
+import exceptions.TimeTrackerException;
+
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.ZoneOffset;
 
 /**
  * This class is used to manipulate things related to the Time.
@@ -22,9 +25,7 @@ public class TimeUtils {
      * @return a string structured in this way: YYYY/MM/DD HH:mm:ss
      */
     public static String getFancyDateTime(LocalDateTime localDateTime) {
-        return
-                getFancyDate(localDateTime.toLocalDate()) + " " +
-                getFancyTime(localDateTime.toLocalTime());
+        return appendFancyDateTime(new StringBuilder(19), localDateTime).toString();
     }
 
     /**
@@ -34,10 +35,7 @@ public class TimeUtils {
      * @return a string structured in this way: YYYY/MM/DD
      */
     public static String getFancyDate(LocalDate localDate) {
-        return
-                localDate.getYear() + "/" +
-                adapterCiphers(localDate.getMonthValue()) + "/" +
-                adapterCiphers(localDate.getDayOfMonth());
+        return appendFancyDate(new StringBuilder(10), localDate).toString();
     }
 
     /**
@@ -47,16 +45,190 @@ public class TimeUtils {
      * @return a string structured in this way: HH:mm:ss
      */
     public static String getFancyTime(LocalTime localTime) {
-        return
-                adapterCiphers(localTime.getHour()) + ":" +
-                adapterCiphers(localTime.getMinute()) + ":" +
-                adapterCiphers(localTime.getSecond());
+        return appendFancyTime(new StringBuilder(8), localTime).toString();
+    }
+
+    /**
+     * This method returns a string structured in this way: HH:mm:ss from a duration expressed in
+     * milliseconds, the milliseconds are truncated.<br>
+     * Unlike the other methods of this class, the hours are not cut to two characters, so a task that
+     * lasts 123 hours is displayed as 123:00:00.
+     * @param durationMillis the duration in milliseconds
+     * @return a string structured in this way: HH:mm:ss
+     */
+    public static String getFancyDuration(long durationMillis) {
+        return appendFancyDuration(new StringBuilder(8), durationMillis).toString();
+    }
+
+    /**
+     * This method appends a {@link LocalDateTime LocalDateTime} structured in this way: YYYY/MM/DD HH:mm:ss
+     * to a {@link StringBuilder StringBuilder}, without making temporary strings.
+     * @param builder the builder where the date and time is appended
+     * @param localDateTime the object that needs to be converted
+     * @return the builder
+     * @see TimeUtils#getFancyDateTime(LocalDateTime)
+     */
+    public static StringBuilder appendFancyDateTime(StringBuilder builder, LocalDateTime localDateTime) {
+        appendFancyDate(builder, localDateTime.toLocalDate()).append(' ');
+        return appendFancyTime(builder, localDateTime.toLocalTime());
+    }
+
+    /**
+     * This method appends a {@link LocalDate LocalDate} structured in this way: YYYY/MM/DD
+     * to a {@link StringBuilder StringBuilder}, without making temporary strings.
+     * @param builder the builder where the date is appended
+     * @param localDate the object that needs to be converted
+     * @return the builder
+     * @see TimeUtils#getFancyDate(LocalDate)
+     */
+    public static StringBuilder appendFancyDate(StringBuilder builder, LocalDate localDate) {
+        builder.append(localDate.getYear()).append('/');
+        appendTwoDigits(builder, localDate.getMonthValue()).append('/');
+        return appendTwoDigits(builder, localDate.getDayOfMonth());
+    }
+
+    /**
+     * This method appends a {@link LocalTime LocalTime} structured in this way: HH:mm:ss
+     * to a {@link StringBuilder StringBuilder}, without making temporary strings.
+     * @param builder the builder where the time is appended
+     * @param localTime the object that needs to be converted
+     * @return the builder
+     * @see TimeUtils#getFancyTime(LocalTime)
+     */
+    public static StringBuilder appendFancyTime(StringBuilder builder, LocalTime localTime) {
+        appendTwoDigits(builder, localTime.getHour()).append(':');
+        appendTwoDigits(builder, localTime.getMinute()).append(':');
+        return appendTwoDigits(builder, localTime.getSecond());
+    }
+
+    /**
+     * This method appends a {@link LocalDateTime LocalDateTime} in the ISO-8601 format, structured in this way:
+     * YYYY-MM-DDTHH:mm:ss, to a {@link StringBuilder StringBuilder}, without making temporary strings.<br>
+     * Unlike {@link LocalDateTime#toString() toString()}, the seconds are always written and the fraction of
+     * second is not written.
+     * @param builder the builder where the date and time is appended
+     * @param localDateTime the object that needs to be converted
+     * @return the builder
+     */
+    public static StringBuilder appendIsoDateTime(StringBuilder builder, LocalDateTime localDateTime) {
+        builder.append(localDateTime.getYear()).append('-');
+        appendTwoDigits(builder, localDateTime.getMonthValue()).append('-');
+        appendTwoDigits(builder, localDateTime.getDayOfMonth()).append('T');
+        appendTwoDigits(builder, localDateTime.getHour()).append(':');
+        appendTwoDigits(builder, localDateTime.getMinute()).append(':');
+        return appendTwoDigits(builder, localDateTime.getSecond());
     }
 
     /**
-     * This method makes a string from an integer, the resultant string will
-     * be composed by two characters. Since it's just needed for the time there's no need
-     * to have more than two characters.<br>
+     * This method appends a duration expressed in milliseconds structured in this way: HH:mm:ss
+     * to a {@link StringBuilder StringBuilder}, without making temporary strings.
+     * @param builder the builder where the duration is appended
+     * @param durationMillis the duration in milliseconds
+     * @return the builder
+     * @see TimeUtils#getFancyDuration(long)
+     */
+    public static StringBuilder appendFancyDuration(StringBuilder builder, long durationMillis) {
+        long totalSeconds = Math.max(0, durationMillis) / 1000;
+        long hours = totalSeconds / 3600;
+        if (hours < 10) {
+            builder.append('0');
+        }
+        builder.append(hours).append(':');
+        appendTwoDigits(builder, (int) (totalSeconds / 60 % 60)).append(':');
+        return appendTwoDigits(builder, (int) (totalSeconds % 60));
+    }
+
+    /**
+     * This method converts a {@link LocalDateTime LocalDateTime} into the number of milliseconds since
+     * 1970-01-01T00:00, the date and time is taken as it is, without time zones, and the fraction of
+     * millisecond is truncated.
+     * @param localDateTime the object that needs to be converted
+     * @return the number of milliseconds since 1970-01-01T00:00
+     * @see TimeUtils#fromEpochMillis(long)
+     */
+    public static long toEpochMillis(LocalDateTime localDateTime) {
+        return localDateTime.toEpochSecond(ZoneOffset.UTC) * 1000 + localDateTime.getNano() / 1000000;
+    }
+
+    /**
+     * This method converts a number of milliseconds since 1970-01-01T00:00 into a
+     * {@link LocalDateTime LocalDateTime}.
+     * @param epochMillis the number of milliseconds since 1970-01-01T00:00
+     * @return the date and time
+     * @see TimeUtils#toEpochMillis(LocalDateTime)
+     */
+    public static LocalDateTime fromEpochMillis(long epochMillis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000L),
+                (int) Math.floorMod(epochMillis, 1000L) * 1000000, ZoneOffset.UTC);
+    }
+
+    /**
+     * This method converts a string structured in this way: YYYY/MM/DD HH:mm:ss into a
+     * {@link LocalDateTime LocalDateTime}, it is the opposite of {@link TimeUtils#getFancyDateTime(LocalDateTime)}.<br>
+     * The characters are read one by one, no temporary object is made, so it can be used to read many tasks.
+     * @param dateTime a string structured in this way: YYYY/MM/DD HH:mm:ss
+     * @return the date and time
+     * @throws TimeTrackerException if the string is not structured in this way: YYYY/MM/DD HH:mm:ss
+     */
+    public static LocalDateTime parseFancyDateTime(CharSequence dateTime) {
+        if (dateTime == null || dateTime.length() != 19 || dateTime.charAt(4) != '/' || dateTime.charAt(7) != '/'
+                || dateTime.charAt(10) != ' ' || dateTime.charAt(13) != ':' || dateTime.charAt(16) != ':') {
+            throw new TimeTrackerException("The date and time " + dateTime + " is not structured in this way: YYYY/MM/DD HH:mm:ss");
+        }
+        try {
+            return LocalDateTime.of(parseDigits(dateTime, 0, 4), parseDigits(dateTime, 5, 7), parseDigits(dateTime, 8, 10),
+                    parseDigits(dateTime, 11, 13), parseDigits(dateTime, 14, 16), parseDigits(dateTime, 17, 19));
+        } catch (RuntimeException e) {
+            throw new TimeTrackerException("The date and time " + dateTime + " is not structured in this way: YYYY/MM/DD HH:mm:ss", e);
+        }
+    }
+
+    /**
+     * This method converts a string structured in this way: HH:mm:ss into the number of
+     * milliseconds that it represents. The hours can have more than two characters.
+     * @param duration a string structured in this way: HH:mm:ss
+     * @return the duration in milliseconds
+     * @throws TimeTrackerException if the string is not structured in this way: HH:mm:ss
+     */
+    public static long parseDuration(String duration) {
+        int firstColon = duration == null ? -1 : duration.indexOf(':');
+        int secondColon = firstColon < 0 ? -1 : duration.indexOf(':', firstColon + 1);
+        if (secondColon < 0) {
+            throw new TimeTrackerException("The duration " + duration + " is not structured in this way: HH:mm:ss");
+        }
+        try {
+            long hours = Long.parseLong(duration.substring(0, firstColon));
+            long minutes = Long.parseLong(duration.substring(firstColon + 1, secondColon));
+            long seconds = Long.parseLong(duration.substring(secondColon + 1));
+            return ((hours * 60 + minutes) * 60 + seconds) * 1000;
+        } catch (NumberFormatException e) {
+            throw new TimeTrackerException("The duration " + duration + " is not structured in this way: HH:mm:ss", e);
+        }
+    }
+
+    /**
+     * This method reads a number made only of digits from a part of a string.
+     * @param chars the string
+     * @param start the index of the first digit
+     * @param end the index after the last digit
+     * @return the number
+     * @throws NumberFormatException if a character is not a digit
+     */
+    private static int parseDigits(CharSequence chars, int start, int end) {
+        int number = 0;
+        for (int i = start; i < end; i++) {
+            int digit = chars.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Not a digit: " + chars.charAt(i));
+            }
+            number = number * 10 + digit;
+        }
+        return number;
+    }
+
+    /**
+     * This method appends an integer with two characters to a {@link StringBuilder StringBuilder}.
+     * Since it's just needed for the time there's no need to have more than two characters.<br>
      * Examples:<br>
      * <ul>
      *     <li>Input: 0 Output: "00"</li>
@@ -65,15 +237,12 @@ public class TimeUtils {
      *     <li>Input: 13 Output: "13"</li>
      *     <li>Input: 123 Output: "23"</li>
      * </ul>
-     * Because of this, tasks that last longer than
-     * 99 hours, 59 minutes and 59 seconds are not supported by this program.
-     * @param number the integer that need to be converted
-     * @return the string representing the integer but with two characters
-     */
-    private static String adapterCiphers(int number) {
-        String numberString = "0" + number;
-        int lengthNumberString = numberString.length();
-        return numberString.substring(lengthNumberString - 2, lengthNumberString);
+     * @param builder the builder where the integer is appended
+     * @param number the integer that need to be converted, it must not be negative
+     * @return the builder
+     */
+    private static StringBuilder appendTwoDigits(StringBuilder builder, int number) {
+        return builder.append((char) ('0' + number / 10 % 10)).append((char) ('0' + number % 10));
     }
 
 }
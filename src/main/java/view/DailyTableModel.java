@@ -0,0 +1,169 @@
+package view;
+
+import model.Task;
+import model.TimeUtils;
+
+import javax.swing.table.AbstractTableModel;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class is the table model of the Daily.<br>
+ * Instead of keeping a row of strings for every task, the tasks are kept in columns of primitive values:
+ * the start and the end are kept as nanoseconds since the epoch, the duration as milliseconds and every
+ * task name is kept only once. The text of a cell is made only when the cell is displayed, so the table
+ * stays small and fast even with tens of thousands of tasks.<br>
+ * This model must be used by the event dispatch thread, like every other Swing component.
+ * @author Patrich Tivoli
+ */
+public class DailyTableModel extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+    private static final int TASK_NAME_COLUMN = 0;
+    private static final int START_COLUMN = 1;
+    private static final int END_COLUMN = 2;
+    private static final int DURATION_COLUMN = 3;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final String[] columnNames;
+    private final Map<String, String> taskNames = new HashMap<>();
+    private String[] names = new String[INITIAL_CAPACITY];
+    private long[] startTimes = new long[INITIAL_CAPACITY];
+    private long[] endTimes = new long[INITIAL_CAPACITY];
+    private long[] durations = new long[INITIAL_CAPACITY];
+    private int rowCount;
+
+    /**
+     * This constructor makes an empty table model.
+     * @param columnNames the names of the columns: task name, start, end and time spent
+     */
+    public DailyTableModel(String[] columnNames) {
+        this.columnNames = columnNames.clone();
+    }
+
+    /**
+     * This method adds a task at the end of the table.
+     * @param task the task
+     */
+    public void addRow(Task task) {
+        ensureCapacity(rowCount + 1);
+        store(task);
+        fireTableRowsInserted(rowCount - 1, rowCount - 1);
+    }
+
+    /**
+     * This method adds some tasks at the end of the table, the table is notified only once.
+     * @param tasks the tasks
+     */
+    public void addRows(Collection<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        int firstRow = rowCount;
+        ensureCapacity(rowCount + tasks.size());
+        for (Task task : tasks) {
+            store(task);
+        }
+        fireTableRowsInserted(firstRow, rowCount - 1);
+    }
+
+    /**
+     * This method removes all the tasks from the table.
+     */
+    public void clear() {
+        if (rowCount == 0) {
+            return;
+        }
+        Arrays.fill(names, 0, rowCount, null);
+        taskNames.clear();
+        rowCount = 0;
+        fireTableDataChanged();
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return String.class;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        switch (columnIndex) {
+            case TASK_NAME_COLUMN:
+                return names[rowIndex];
+            case START_COLUMN:
+                return toLocalDateTime(startTimes[rowIndex]).toLocalTime().toString();
+            case END_COLUMN:
+                return toLocalDateTime(endTimes[rowIndex]).toLocalTime().toString();
+            case DURATION_COLUMN:
+                return TimeUtils.getFancyDuration(durations[rowIndex]);
+            default:
+                throw new IndexOutOfBoundsException("Column " + columnIndex + " does not exist");
+        }
+    }
+
+    /**
+     * This method writes a task in the first free row, the capacity must be already enough.
+     * @param task the task
+     */
+    private void store(Task task) {
+        names[rowCount] = taskNames.computeIfAbsent(task.getTaskName(), name -> name);
+        startTimes[rowCount] = toNanos(task.getStartTime());
+        endTimes[rowCount] = toNanos(task.getEndTime());
+        durations[rowCount] = task.getDuration();
+        rowCount++;
+    }
+
+    /**
+     * This method makes the columns bigger if they cannot contain the given number of rows.
+     * @param capacity the number of rows needed
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > names.length) {
+            int newCapacity = Math.max(capacity, names.length * 2);
+            names = Arrays.copyOf(names, newCapacity);
+            startTimes = Arrays.copyOf(startTimes, newCapacity);
+            endTimes = Arrays.copyOf(endTimes, newCapacity);
+            durations = Arrays.copyOf(durations, newCapacity);
+        }
+    }
+
+    /**
+     * This method converts a date and time in the number of nanoseconds since the epoch.
+     * @param localDateTime the date and time
+     * @return the nanoseconds since the epoch
+     */
+    private static long toNanos(LocalDateTime localDateTime) {
+        return localDateTime.toEpochSecond(ZoneOffset.UTC) * NANOS_PER_SECOND + localDateTime.getNano();
+    }
+
+    /**
+     * This method converts a number of nanoseconds since the epoch in a date and time.
+     * @param nanos the nanoseconds since the epoch
+     * @return the date and time
+     */
+    private static LocalDateTime toLocalDateTime(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(nanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+
+}
@@ -0,0 +1,259 @@
+package view;
+
+import exceptions.TimeTrackerException;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionListener;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is the queue of the events of the UI with a watchdog of the event dispatch thread.<br>
+ * Every event is timed while it is dispatched: the time is recorded in the {@link MetricsRegistry metrics}
+ * and the events that take more than the threshold are logged with the listeners that received them. When an
+ * event opens a modal dialog, the event dispatch thread waits for the events of the dialog and dispatches them
+ * inside it: the UI is not frozen in the meantime, so that time is not counted for the event that opened
+ * the dialog.<br>
+ * A watchdog thread checks the event that is being dispatched every {@value #CHECK_INTERVAL_MILLIS}
+ * milliseconds: when it is running for more than the threshold, the UI is frozen, so the stack of the event
+ * dispatch thread is captured and logged, once for every stall, together with the code of the program that is
+ * running and the listener that called it. The watchdog also puts a probe in the queue every
+ * {@value #PROBE_INTERVAL_MILLIS} milliseconds to measure how long an event waits before being dispatched.<br>
+ * The threshold is {@value #DEFAULT_STALL_THRESHOLD_MILLIS} milliseconds, it can be changed with the system
+ * property {@value #STALL_THRESHOLD_PROPERTY}.
+ * @author Patrich Tivoli
+ * @see EventQueue
+ */
+public class MonitoredEventQueue extends EventQueue {
+
+    /**
+     * The name of the system property used to choose after how many milliseconds an event is a stall.
+     */
+    public static final String STALL_THRESHOLD_PROPERTY = "timeTracker.edt.stallThresholdMillis";
+
+    private static final long DEFAULT_STALL_THRESHOLD_MILLIS = 500L;
+    private static final long CHECK_INTERVAL_MILLIS = 100L;
+    private static final long PROBE_INTERVAL_MILLIS = 1000L;
+    /**
+     * The maximum number of frames of the stack written in the log.
+     */
+    private static final int MAX_LOGGED_FRAMES = 40;
+
+    private static final Logger LOGGER = Logger.getLogger(MonitoredEventQueue.class.getName());
+    private static final Histogram DISPATCH_LATENCY = MetricsRegistry.histogram("edt.dispatch");
+    private static final Histogram QUEUE_LATENCY = MetricsRegistry.histogram("edt.queueLatency");
+    private static final Counter STALLS = MetricsRegistry.counter("edt.stalls");
+
+    private final long stallThresholdNanos;
+    private final AtomicBoolean probePending = new AtomicBoolean();
+    private volatile Thread dispatchThread;
+    private volatile AWTEvent currentEvent;
+    /**
+     * When the event dispatch thread started to run the current event without dispatching other events.
+     */
+    private volatile long segmentStartNanos;
+    /**
+     * The number of segments started, it is written after the other fields so the watchdog can tell if the
+     * event dispatch thread has moved on while it was reading them.
+     */
+    private volatile long segmentNumber;
+    /**
+     * The time spent by the current event before its last segment, it is used only by the event dispatch thread.
+     */
+    private long busyNanos;
+    private long reportedSegmentNumber = -1;
+
+    /**
+     * This constructor makes the queue, it is not used until it is {@link MonitoredEventQueue#install() installed}.
+     * @param stallThresholdMillis after how many milliseconds an event is a stall
+     */
+    public MonitoredEventQueue(long stallThresholdMillis) {
+        this.stallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(stallThresholdMillis);
+    }
+
+    /**
+     * This method replaces the queue of the events of the UI with a monitored one and starts the watchdog.<br>
+     * It should be called before the UI is made, so all the events are monitored.
+     * @return the queue installed
+     * @see MonitoredEventQueue#STALL_THRESHOLD_PROPERTY
+     */
+    public static MonitoredEventQueue install() {
+        long threshold = Math.max(1L, Long.getLong(STALL_THRESHOLD_PROPERTY, DEFAULT_STALL_THRESHOLD_MILLIS));
+        MonitoredEventQueue queue = new MonitoredEventQueue(threshold);
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(queue);
+        Thread watchdog = new Thread(queue::watch, "edt-watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+        return queue;
+    }
+
+    /**
+     * This method dispatches an event and measures how long it takes. The events are dispatched one at a time
+     * by the event dispatch thread; if an event is dispatched inside another one, e.g. by a modal dialog, the
+     * outer event is suspended until the inner one ends.
+     * @param event the event
+     */
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        long start = System.nanoTime();
+        AWTEvent outerEvent = currentEvent;
+        long outerBusyNanos = busyNanos;
+        if (outerEvent != null) {
+            outerBusyNanos += start - segmentStartNanos;
+        }
+        dispatchThread = Thread.currentThread();
+        busyNanos = 0;
+        currentEvent = event;
+        segmentStartNanos = start;
+        segmentNumber++;
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            long end = System.nanoTime();
+            long busy = busyNanos + end - segmentStartNanos;
+            currentEvent = outerEvent;
+            busyNanos = outerBusyNanos;
+            segmentStartNanos = end;
+            segmentNumber++;
+            DISPATCH_LATENCY.record(busy);
+            if (busy > stallThresholdNanos) {
+                LOGGER.log(Level.WARNING, () -> "The event dispatch thread was blocked for "
+                        + TimeUnit.NANOSECONDS.toMillis(busy) + " ms by " + describe(event));
+            }
+        }
+    }
+
+    /**
+     * This method waits for the next event. If it is called while an event is dispatched, e.g. by a modal dialog,
+     * the event is suspended while the event dispatch thread is waiting, since the UI is not frozen.
+     * @return the next event
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    @Override
+    public AWTEvent getNextEvent() throws InterruptedException {
+        AWTEvent event = currentEvent;
+        if (event == null || Thread.currentThread() != dispatchThread) {
+            return super.getNextEvent();
+        }
+        busyNanos += System.nanoTime() - segmentStartNanos;
+        currentEvent = null;
+        segmentNumber++;
+        try {
+            return super.getNextEvent();
+        } finally {
+            currentEvent = event;
+            segmentStartNanos = System.nanoTime();
+            segmentNumber++;
+        }
+    }
+
+    /**
+     * This method is the loop of the watchdog thread: it looks for stalls and puts the probes in the queue.
+     */
+    private void watch() {
+        long nextProbe = System.nanoTime();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(CHECK_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            checkStall();
+            long now = System.nanoTime();
+            if (now - nextProbe >= 0 && probePending.compareAndSet(false, true)) {
+                nextProbe = now + TimeUnit.MILLISECONDS.toNanos(PROBE_INTERVAL_MILLIS);
+                SwingUtilities.invokeLater(() -> {
+                    QUEUE_LATENCY.recordSince(now);
+                    probePending.set(false);
+                });
+            }
+        }
+    }
+
+    /**
+     * This method checks if the event being dispatched is running for more than the threshold, in this case
+     * the stack of the event dispatch thread is captured and logged, only once for every stall.
+     */
+    private void checkStall() {
+        long number = segmentNumber;
+        AWTEvent event = currentEvent;
+        long start = segmentStartNanos;
+        Thread thread = dispatchThread;
+        if (event == null || thread == null || number == reportedSegmentNumber
+                || System.nanoTime() - start <= stallThresholdNanos) {
+            return;
+        }
+        StackTraceElement[] stack = thread.getStackTrace();
+        if (number != segmentNumber) {
+            return;
+        }
+        reportedSegmentNumber = number;
+        STALLS.increment();
+        TimeTrackerException stall = new TimeTrackerException("Stack of " + thread.getName());
+        stall.setStackTrace(Arrays.copyOf(stack, Math.min(stack.length, MAX_LOGGED_FRAMES)));
+        LOGGER.log(Level.WARNING, "The event dispatch thread is blocked for "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms by " + describe(event)
+                + ", running " + findProgramFrame(stack, false) + " called by " + findProgramFrame(stack, true), stall);
+    }
+
+    /**
+     * This method describes an event: its kind, its source and, for the buttons, the classes of the listeners
+     * of their actions, since the action of a button is fired while its mouse or key event is dispatched.
+     * @param event the event
+     * @return the description
+     */
+    private static String describe(AWTEvent event) {
+        StringBuilder description = new StringBuilder(event.getClass().getSimpleName())
+                .append('[').append(event.paramString()).append(']');
+        Object source = event.getSource();
+        if (source != null) {
+            description.append(" on ").append(source.getClass().getName());
+        }
+        if (source instanceof AbstractButton) {
+            description.append(" with listeners");
+            for (ActionListener listener : ((AbstractButton) source).getActionListeners()) {
+                description.append(' ').append(listener.getClass().getName());
+            }
+        }
+        return description.toString();
+    }
+
+    /**
+     * This method finds a frame of the stack that belongs to the program: the innermost one is the code that is
+     * blocking the event dispatch thread, the outermost one is the listener that called it.
+     * @param stack the stack of the event dispatch thread, the innermost frame first
+     * @param outermost true to find the outermost frame, false to find the innermost one
+     * @return the frame, or "unknown code" if all the frames belong to Java or to the libraries
+     */
+    private static String findProgramFrame(StackTraceElement[] stack, boolean outermost) {
+        for (int i = 0; i < stack.length; i++) {
+            StackTraceElement frame = stack[outermost ? stack.length - 1 - i : i];
+            if (isProgramClass(frame.getClassName())) {
+                return frame.toString();
+            }
+        }
+        return "unknown code";
+    }
+
+    /**
+     * This method tells if a class belongs to the program and not to Java, to the libraries or to this queue.
+     * The classes made for the lambdas are skipped too, their frame is followed by the one of the lambda.
+     * @param className the name of the class
+     * @return true if the class belongs to the program
+     */
+    private static boolean isProgramClass(String className) {
+        return !className.contains("$$Lambda") && !className.startsWith("java.") && !className.startsWith("javax.") && !className.startsWith("sun.")
+                && !className.startsWith("jdk.") && !className.startsWith("com.sun.")
+                && !className.startsWith("org.h2.") && !className.startsWith("com.github.lgooddatepicker.")
+                && !className.startsWith(MonitoredEventQueue.class.getName());
+    }
+
+}
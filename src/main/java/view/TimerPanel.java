@@ -0,0 +1,85 @@
+package view;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionListener;
+import java.util.ResourceBundle;
+
+/**
+ * This class is the panel of a task that is running: the name of the task, its timer and the buttons
+ * to pause and to stop it.<br>
+ * There is a panel for every task that is running, they are shown by the {@link View View}.
+ * @author Patrich Tivoli
+ */
+public class TimerPanel extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+    private final transient ResourceBundle resourceBundle;
+    private final JLabel clock;
+    private final JButton pause;
+    private final JButton stop;
+
+    /**
+     * This constructor makes the panel of a task.
+     * @param resourceBundle the resourceBundle needed for the translations
+     * @param taskName the name of the task
+     */
+    public TimerPanel(ResourceBundle resourceBundle, String taskName) {
+        this.resourceBundle = resourceBundle;
+
+        JLabel name = new JLabel(taskName);
+        name.setFont(new Font(View.SEGOE_UI_LIGHT, Font.PLAIN, 20));
+        name.setToolTipText(taskName);
+
+        clock = new JLabel("", SwingConstants.CENTER);
+        clock.setFont(new Font(View.SEGOE_UI_LIGHT, Font.PLAIN, 30));
+
+        pause = new JButton(resourceBundle.getString("pause"));
+        pause.setFont(new Font(View.SEGOE_UI_LIGHT, Font.PLAIN, 20));
+
+        stop = new JButton(resourceBundle.getString("stop"));
+        stop.setFont(new Font(View.SEGOE_UI_LIGHT, Font.PLAIN, 20));
+
+        add(name);
+        add(clock);
+        add(pause);
+        add(stop);
+        setLayout(new GridLayout(1, 4));
+        setMaximumSize(new Dimension(Integer.MAX_VALUE, getPreferredSize().height));
+    }
+
+    /**
+     * This method can be used to get the {@link JLabel label} of the timer.
+     * @return the label of the timer
+     */
+    public JLabel getClockLabel() {
+        return clock;
+    }
+
+    /**
+     * This method sets the action listener of the pause button.
+     * @param actionListener the action listener to implement
+     * @see ActionListener
+     */
+    public void setPauseActionListener(ActionListener actionListener) {
+        pause.addActionListener(actionListener);
+    }
+
+    /**
+     * This method sets the action listener of the stop button.
+     * @param actionListener the action listener to implement
+     * @see ActionListener
+     */
+    public void setStopActionListener(ActionListener actionListener) {
+        stop.addActionListener(actionListener);
+    }
+
+    /**
+     * This method shows if the timer is paused: the pause button becomes the button to resume it.
+     * @param paused true if the timer is paused, false otherwise
+     */
+    public void setPaused(boolean paused) {
+        pause.setText(resourceBundle.getString(paused ? "resume" : "pause"));
+    }
+
+}
@@ -2,15 +2,18 @@ package view;
 
 import com.github.lgooddatepicker.components.DateTimePicker;
 import exceptions.TimeTrackerException;
+import model.ReportType;
 import model.Task;
 import model.TimeUtils;
 
 import javax.swing.*;
 import javax.swing.event.DocumentListener;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionListener;
+import java.io.File;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.ResourceBundle;
 
 /**
@@ -22,6 +25,10 @@ public class View {
      * This is the font used to display the objects to the user.
      */
     public static final String SEGOE_UI_LIGHT = "Segoe UI Light";
+    /**
+     * This is how long the welcome message is displayed, in milliseconds.
+     */
+    private static final int WELCOME_MESSAGE_MILLIS = 2000;
     /**
      * This is the main frame.
      * @see JFrame
@@ -33,19 +40,13 @@ public class View {
      */
     private JButton start;
     /**
-     * This is the button used to stop the timer to count the time of a task and
-     * used to save the tasks in the database and in the file.
-     * @see JButton
-     */
-    private JButton stop;
-    /**
-     * Clock is actually the timer that counts the time of a task.
-     * @see JLabel
+     * This is the panel with a {@link TimerPanel timer} for every task that is running, every timer
+     * has its own buttons to pause it and to stop it.
+     * @see TimerPanel
      */
-    private JLabel clock;
+    private JPanel timersPanel;
     /**
-     * Since clock was the timer that counts the time of a task, the little clock with
-     * the current date and time is called now.
+     * This is the little clock with the current date and time.
      * @see JLabel
      */
     private JLabel now;
@@ -56,9 +57,14 @@ public class View {
     private JTextArea taskDescription;
     /**
      * This is table model of the Daily.
-     * @see DefaultTableModel
+     * @see DailyTableModel
      */
-    private DefaultTableModel tableModel;
+    private DailyTableModel tableModel;
+    /**
+     * This is the indicator shown while the Daily is loading.
+     * @see JProgressBar
+     */
+    private JProgressBar loadingBar;
     /**
      * This is the date and time picker used to filter the tasks while generating
      * the report. This date and time picker refers to the beginning date and time.
@@ -79,6 +85,26 @@ public class View {
      * @see DateTimePicker
      */
     private DateTimePicker toDateTimePicker;
+    /**
+     * This is the combo box used to choose the kind of report.
+     * @see JComboBox
+     * @see ReportType
+     */
+    private JComboBox<String> reportTypeComboBox;
+    /**
+     * This is the combo box used to choose the format of the list of tasks of the report.
+     * @see JComboBox
+     */
+    private JComboBox<String> reportFormatComboBox;
+    /**
+     * This tells, for every format of the combo box, if the format is made of text and so it can be compressed.
+     */
+    private boolean[] textReportFormats = new boolean[0];
+    /**
+     * This is the checkbox used to compress the text report with gzip.
+     * @see JCheckBox
+     */
+    private JCheckBox compressedReportCheckBox;
     /**
      * This is the button used to generate the report.
      * @see JButton
@@ -102,7 +128,9 @@ public class View {
 
     /**
      * This is the constructor that initialize the frame with all its objects.
-     * Now it displays even a nice welcome message.
+     * Now it displays even a nice welcome message, on top of the frame, so the frame can be used while the
+     * message is displayed.<br>
+     * It must be called by the event dispatch thread.
      * @param resourceBundle the resourceBundle needed for the translations
      * @see JFrame
      * @see ResourceBundle
@@ -110,13 +138,13 @@ public class View {
     public View(ResourceBundle resourceBundle){
         this.resourceBundle = resourceBundle;
         setLookAndFeel();
-        welcomeMessage();
         frame = new JFrame("Time Tracker");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.add(rootPanel());
         frame.setSize(1000,500);
         frame.setLocationRelativeTo(null);
         frame.setVisible(true);
+        welcomeMessage();
     }
 
     /**
@@ -150,18 +178,15 @@ public class View {
     }
 
     /**
-     * This is the control panel which is the panel with the task description, start and
-     * stop button.
+     * This is the control panel which is the panel with the task description, the start button and
+     * the timers of the tasks that are running.
      * @return the control panel
      * @see JPanel
      * @see GridLayout
+     * @see BorderLayout
+     * @see TimerPanel
      */
     private JPanel controlPanel() {
-        JPanel panel = new JPanel();
-
-        clock = new JLabel("", SwingConstants.CENTER);
-        clock.setFont(new Font(SEGOE_UI_LIGHT, Font.PLAIN, 50));
-
         taskDescription = new JTextArea();
         taskDescription.setFont(new Font(SEGOE_UI_LIGHT, Font.PLAIN, 50));
 
@@ -169,17 +194,19 @@ public class View {
         start.setEnabled(false);
         start.setFont(new Font(SEGOE_UI_LIGHT, Font.PLAIN, 50));
 
-        stop = new JButton(resourceBundle.getString("stop"));
-        stop.setEnabled(false);
-        stop.setFont(new Font(SEGOE_UI_LIGHT, Font.PLAIN, 50));
+        JPanel newTaskPanel = new JPanel();
+        newTaskPanel.add(taskDescription);
+        newTaskPanel.add(start);
+        newTaskPanel.setLayout(new GridLayout(2,1));
 
-        panel.add(clock);
-        panel.add(taskDescription);
-        panel.add(start);
-        panel.add(stop);
+        timersPanel = new JPanel();
+        timersPanel.setLayout(new BoxLayout(timersPanel, BoxLayout.Y_AXIS));
 
+        JPanel panel = new JPanel();
+        panel.setLayout(new BorderLayout());
+        panel.add(newTaskPanel, BorderLayout.NORTH);
+        panel.add(new JScrollPane(timersPanel), BorderLayout.CENTER);
         panel.setBorder(BorderFactory.createTitledBorder(resourceBundle.getString("control")));
-        panel.setLayout(new GridLayout(4,1));
         return panel;
     }
 
@@ -188,27 +215,33 @@ public class View {
      * @return the daily panel
      * @see JPanel
      * @see JTable
-     * @see DefaultTableModel
+     * @see DailyTableModel
      * @see JScrollPane
+     * @see JProgressBar
      * @see BorderFactory
-     * @see GridLayout
+     * @see BorderLayout
      */
     private JPanel dailyPanelInfo() {
         JTable table = new JTable();
-        tableModel = new DefaultTableModel(0, 0);
         String[] header = new String[] {
                 resourceBundle.getString("taskName"),
                 resourceBundle.getString("start"),
                 resourceBundle.getString("end"),
                 resourceBundle.getString("timeSpent")
         };
-        tableModel.setColumnIdentifiers(header);
+        tableModel = new DailyTableModel(header);
         table.setModel(tableModel);
         JScrollPane scrollPane = new JScrollPane(table);
+        loadingBar = new JProgressBar();
+        loadingBar.setIndeterminate(true);
+        loadingBar.setString(resourceBundle.getString("loading"));
+        loadingBar.setStringPainted(true);
+        loadingBar.setVisible(false);
         JPanel panel = new JPanel();
-        panel.add(scrollPane);
+        panel.setLayout(new BorderLayout());
+        panel.add(scrollPane, BorderLayout.CENTER);
+        panel.add(loadingBar, BorderLayout.SOUTH);
         panel.setBorder(BorderFactory.createTitledBorder(resourceBundle.getString("daily")));
-        panel.setLayout(new GridLayout(1,1));
         return panel;
     }
 
@@ -229,14 +262,15 @@ public class View {
     }
 
     /**
-     * This is the report panel which is the panel that contains the tasks filter and the button
-     * used to generate the report.
+     * This is the report panel which is the panel that contains the tasks filter, the kind of report and
+     * the button used to generate the report.
      * A special thanks goes to LGoodDatePicker and all its fantastic contributor for
      * making this fantastic project.
      * For more information about LGoodDatePicker, please visit their
      * <a href="https://github.com/LGoodDatePicker/LGoodDatePicker">GitHub page</a>.
      * @return the report panel
      * @see DateTimePicker
+     * @see JComboBox
      * @see JPanel
      * @see FlowLayout
      * @see BorderFactory
@@ -268,6 +302,21 @@ public class View {
         toDateTimePicker.getTimePicker().setTimeToNow();
         panel.add(toDateTimePicker);
 
+        reportTypeComboBox = new JComboBox<>();
+        for (ReportType reportType : ReportType.values()) {
+            reportTypeComboBox.addItem(resourceBundle.getString(reportType.getBundleKey()));
+        }
+        reportTypeComboBox.addActionListener(e -> updateReportOptions());
+        panel.add(reportTypeComboBox);
+
+        reportFormatComboBox = new JComboBox<>();
+        reportFormatComboBox.addActionListener(e -> updateReportOptions());
+        panel.add(reportFormatComboBox);
+
+        compressedReportCheckBox = new JCheckBox(resourceBundle.getString("compressedReport"));
+        panel.add(compressedReportCheckBox);
+        updateReportOptions();
+
         generateReport = new JButton(resourceBundle.getString("generateReport"));
         panel.add(generateReport);
         panel.setBorder(BorderFactory.createTitledBorder(resourceBundle.getString("report")));
@@ -275,6 +324,34 @@ public class View {
         return panel;
     }
 
+    /**
+     * This method enables only the options that can be used with the kind of report chosen: only the list of
+     * tasks has a format and only the text reports can be compressed.
+     * @see JComboBox
+     * @see JCheckBox
+     */
+    private void updateReportOptions() {
+        boolean tasks = getReportType() == ReportType.TASKS;
+        int format = reportFormatComboBox.getSelectedIndex();
+        reportFormatComboBox.setEnabled(tasks);
+        compressedReportCheckBox.setEnabled(!tasks || format < 0 || textReportFormats[format]);
+    }
+
+    /**
+     * This method fills the combo box of the formats of the list of tasks, the first format is selected.
+     * @param names the names of the formats
+     * @param text for every format, true if it is made of text and so it can be compressed
+     * @see JComboBox
+     */
+    public void setReportFormats(List<String> names, boolean[] text) {
+        textReportFormats = text.clone();
+        reportFormatComboBox.removeAllItems();
+        for (String name : names) {
+            reportFormatComboBox.addItem(name);
+        }
+        updateReportOptions();
+    }
+
     /**
      * This method sets the look and feel of the program, it uses the system look and feel to make
      * this program a little more fancy.
@@ -300,30 +377,27 @@ public class View {
     }
 
     /**
-     * This method sets the action listener of the stop button.
-     * @param actionListener the action listener to implement
-     * @see ActionListener
-     * @see JLabel
+     * This method adds the timer of a task that is started.
+     * @param taskName the name of the task
+     * @return the panel of the timer, with its label and its buttons
+     * @see TimerPanel
      */
-    public void setStopActionListener(ActionListener actionListener) {
-        stop.addActionListener(actionListener);
+    public TimerPanel addTimerPanel(String taskName) {
+        TimerPanel timerPanel = new TimerPanel(resourceBundle, taskName);
+        timersPanel.add(timerPanel);
+        timersPanel.revalidate();
+        return timerPanel;
     }
 
     /**
-     * This method returns the string with the value of the timer.
-     * @return the value of the timer
-     * @see JLabel
-     */
-    public String getClock() {
-        return clock.getText();
-    }
-
-    /**
-     * This method resets the timer.
-     * @see JLabel
+     * This method removes the timer of a task that is stopped.
+     * @param timerPanel the panel of the timer
+     * @see TimerPanel
      */
-    public void resetClock(){
-        clock.setText("00:00:00");
+    public void removeTimerPanel(TimerPanel timerPanel) {
+        timersPanel.remove(timerPanel);
+        timersPanel.revalidate();
+        timersPanel.repaint();
     }
 
     /**
@@ -359,61 +433,59 @@ public class View {
      * @see JButton
      */
     public void enableStartButton(){
-        if (!this.stop.isEnabled()) {
-            this.start.setEnabled(true);
-        }
+        this.start.setEnabled(true);
     }
 
     /**
-     * This method enables the stop button.
+     * This method disables the start button.
      * @see JButton
      */
-    public void enableStopButton(){
-        if (!this.start.isEnabled()) {
-            this.stop.setEnabled(true);
-        }
+    public void disableStartButton(){
+        this.start.setEnabled(false);
     }
 
+
     /**
-     * This method disables the start button.
-     * @see JButton
+     * This method erase the task description.
+     * @see JLabel
      */
-    public void disableStartButton(){
-        this.start.setEnabled(false);
+    public void eraseTaskDescription() {
+        this.taskDescription.setText("");
     }
 
     /**
-     * This method disables the stop button.
-     * @see JButton
+     * This method adds a task to the Daily.
+     * @param task the task that needs to be added to the Daily.
+     * @see DailyTableModel
      */
-    public void disableStopButton(){
-        this.stop.setEnabled(false);
+    public void addRowOnTable(Task task) {
+        this.tableModel.addRow(task);
     }
 
     /**
-     * This method can be used to get the {@link JLabel label} of the timer.
-     * @return the label of the timer
-     * @see JLabel
+     * This method adds some tasks to the Daily, the table is updated only once.
+     * @param tasks the tasks that need to be added to the Daily.
+     * @see DailyTableModel
      */
-    public JLabel getClockLabel() {
-        return this.clock;
+    public void addRowsOnTable(List<Task> tasks) {
+        this.tableModel.addRows(tasks);
     }
 
     /**
-     * This method erase the task description.
-     * @see JLabel
+     * This method removes all the tasks from the Daily.
+     * @see DailyTableModel
      */
-    public void eraseTaskDescription() {
-        this.taskDescription.setText("");
+    public void clearTable() {
+        this.tableModel.clear();
     }
 
     /**
-     * This method adds a task to the Daily.
-     * @param task the task that needs to be added to the Daily.
-     * @see DefaultTableModel
+     * This method shows or hides the indicator that the Daily is loading.
+     * @param loading true to show the indicator, false to hide it
+     * @see JProgressBar
      */
-    public void addRowOnTable(Task task) {
-        this.tableModel.addRow(new String[] {task.getTaskName(), task.getStartTime().toLocalTime().toString(), task.getEndTime().toLocalTime().toString(), task.getDelta()});
+    public void setLoading(boolean loading) {
+        this.loadingBar.setVisible(loading);
     }
 
     /**
@@ -462,6 +534,51 @@ public class View {
         return toDateTimePicker.getDateTimePermissive();
     }
 
+    /**
+     * This is the method used to get the kind of report chosen by the user.
+     * @return the kind of report
+     * @see ReportType
+     * @see JComboBox
+     */
+    public ReportType getReportType() {
+        return ReportType.values()[reportTypeComboBox.getSelectedIndex()];
+    }
+
+    /**
+     * This is the method used to get the format of the list of tasks chosen by the user.
+     * @return the position of the format in the list given to
+     * {@link View#setReportFormats(List, boolean[]) setReportFormats}
+     * @see JComboBox
+     */
+    public int getReportFormatIndex() {
+        return reportFormatComboBox.getSelectedIndex();
+    }
+
+    /**
+     * This method asks the user where the report has to be saved.
+     * @param defaultFileName the name of the file proposed to the user
+     * @return the file chosen, null if the user cancelled
+     * @see JFileChooser
+     */
+    public Path chooseReportPath(String defaultFileName) {
+        JFileChooser fileChooser = new JFileChooser(new File(".").getAbsoluteFile().getParentFile());
+        fileChooser.setSelectedFile(new File(defaultFileName));
+        if (fileChooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) {
+            return null;
+        }
+        return fileChooser.getSelectedFile().toPath();
+    }
+
+    /**
+     * This method returns a boolean representing the status of the checkbox used to compress
+     * the text report.
+     * @return true if the report has to be compressed, false otherwise
+     * @see JCheckBox
+     */
+    public boolean compressedReportSelected() {
+        return compressedReportCheckBox.isSelected();
+    }
+
     /**
      * This method is used to create a new message for the user.
      * @return the handler to make a message for the user
@@ -492,7 +609,10 @@ public class View {
     }
 
     /**
-     * This is the method that displays a nice welcome message to the user.
+     * This is the method that displays a nice welcome message to the user.<br>
+     * The message is hidden by a {@link Timer Timer} after {@value #WELCOME_MESSAGE_MILLIS} milliseconds, so
+     * the event dispatch thread is not blocked in the meantime.
+     * @see Timer
      */
     public void welcomeMessage() {
         JFrame welcomeMessage = new JFrame();
@@ -505,12 +625,9 @@ public class View {
         welcomeMessage.setSize(500,150);
         welcomeMessage.setLocationRelativeTo(null);
         welcomeMessage.setVisible(true);
-        try {
-            Thread.sleep(2000);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        }
-        welcomeMessage.setVisible(false);
+        Timer timer = new Timer(WELCOME_MESSAGE_MILLIS, e -> welcomeMessage.dispose());
+        timer.setRepeats(false);
+        timer.start();
     }
 
 }
@@ -0,0 +1,113 @@
+package controller.persistence;
+
+import controller.persistence.database.management.DatabaseManager;
+import controller.persistence.database.management.TaskDao;
+import model.Task;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This class checks that the journal can be imported in the database that already has its tasks, even if the
+ * tasks saved by the program start at a fraction of a second while the journal has only whole seconds.
+ * @author Patrich Tivoli
+ */
+class TaskImporterTest {
+
+    private static final LocalDateTime DAY = LocalDate.of(2023, 1, 5).atStartOfDay();
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void openDatabase() {
+        System.setProperty(DatabaseManager.DATABASE_URL_PROPERTY, "jdbc:h2:mem:importTest;DB_CLOSE_DELAY=-1");
+    }
+
+    @AfterAll
+    static void closeDatabase() {
+        DatabaseManager.closeConnection();
+        System.clearProperty(DatabaseManager.DATABASE_URL_PROPERTY);
+    }
+
+    @Test
+    void journalOfSavedTasksAddsNoTask() throws IOException {
+        LocalDateTime start = DAY.plusHours(9).plusNanos(123456000);
+        List<Task> tasks = Arrays.asList(
+                task("write", start, start.plusMinutes(30)),
+                task("read", start.plusNanos(500000000), start.plusMinutes(20)),
+                task("write", start.plusHours(1), start.plusHours(2)));
+        TaskDao.saveTasks(tasks);
+
+        importFile(writeJournal(tasks));
+
+        List<Task> saved = TaskDao.getTaskFromRange(DAY, DAY.plusDays(1));
+        assertEquals(3, saved.size());
+        assertEquals(Arrays.asList("write", "read", "write"), getTaskNames(saved));
+    }
+
+    @Test
+    void taskThatStartsAtTheSameTimeIsReplaced() throws IOException {
+        LocalDateTime start = DAY.plusDays(1).plusHours(9);
+        TaskDao.saveTasks(Arrays.asList(task("write", start, start.plusMinutes(30))));
+
+        importFile(writeJournal(Arrays.asList(task("read", start, start.plusMinutes(40)))));
+
+        List<Task> saved = TaskDao.getTaskFromRange(start, start.plusDays(1));
+        assertEquals(1, saved.size());
+        assertEquals("read", saved.get(0).getTaskName());
+        assertEquals(Duration.ofMinutes(40).toMillis(), saved.get(0).getDuration());
+    }
+
+    private Path writeJournal(List<Task> tasks) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Task task : tasks) {
+            String record = task.toString();
+            lines.add(record + "\tCRC: " + ReportJournal.getChecksum(record));
+        }
+        Path journal = Files.createTempFile(directory, "report", ".dat");
+        Files.write(journal, lines, Charset.defaultCharset());
+        return journal;
+    }
+
+    private static void importFile(Path path) throws IOException {
+        TaskImporter importer = new TaskImporter(1);
+        try {
+            importer.importFile(path);
+            assertEquals(0, importer.getRejectedLines());
+        } finally {
+            importer.close();
+        }
+    }
+
+    private static List<String> getTaskNames(List<Task> tasks) {
+        List<String> names = new ArrayList<>();
+        for (Task task : tasks) {
+            names.add(task.getTaskName());
+        }
+        return names;
+    }
+
+    private static Task task(String name, LocalDateTime start, LocalDateTime end) {
+        Task task = new Task(name);
+        task.setStartTime(start);
+        task.setEndTime(end);
+        task.setDuration(Duration.between(start, end).toMillis());
+        return task;
+    }
+
+}
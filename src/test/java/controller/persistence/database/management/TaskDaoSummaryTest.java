@@ -0,0 +1,121 @@
+package controller.persistence.database.management;
+
+import model.ReportType;
+import model.Task;
+import model.TaskSummary;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * This class checks that the summary counts the same tasks of the list of the tasks, whether it is computed
+ * from the daily totals or from the tasks.
+ * @author Patrich Tivoli
+ */
+class TaskDaoSummaryTest {
+
+    private static final LocalDateTime FIRST_DAY = LocalDate.of(2023, 1, 1).atStartOfDay();
+    private static final LocalDateTime TO = FIRST_DAY.plusDays(3);
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+
+    @BeforeAll
+    static void saveTasks() {
+        System.setProperty(DatabaseManager.DATABASE_URL_PROPERTY, "jdbc:h2:mem:summaryTest;DB_CLOSE_DELAY=-1");
+        List<Task> tasks = new ArrayList<>();
+        for (int day = 0; day < 3; day++) {
+            for (int hour = 8; hour < 13; hour++) {
+                LocalDateTime start = FIRST_DAY.plusDays(day).plusHours(hour);
+                tasks.add(task(hour % 2 == 0 ? "even" : "odd", start, start.plusMinutes(30)));
+            }
+        }
+        LocalDateTime lastDay = TO.minusDays(1);
+        tasks.add(task("midnight", lastDay.plusHours(23).plusMinutes(30), TO.plusMinutes(30)));
+        tasks.add(task("odd", lastDay.plusHours(22), lastDay.plusHours(23)));
+        tasks.add(task("long", FIRST_DAY.plusHours(20), TO.plusHours(12)));
+        tasks.add(task("even", TO.plusHours(9), TO.plusHours(10)));
+        TaskDao.saveTasks(tasks);
+    }
+
+    @AfterAll
+    static void closeDatabase() {
+        DatabaseManager.closeConnection();
+        System.clearProperty(DatabaseManager.DATABASE_URL_PROPERTY);
+    }
+
+    @Test
+    void summaryByTaskNameAtMidnightMatchesTheTasks() {
+        assertSummary(ReportType.TASK_NAME, TO);
+    }
+
+    @Test
+    void summaryByTaskNameAfterMidnightMatchesTheTasks() {
+        assertSummary(ReportType.TASK_NAME, TO.plusSeconds(1));
+    }
+
+    @Test
+    void summaryByDayAtMidnightMatchesTheTasks() {
+        assertSummary(ReportType.DAY, TO);
+    }
+
+    @Test
+    void summaryWithoutFromMatchesTheTasks() {
+        List<TaskSummary> expected = summarize(TaskDao.getTaskFromRange(null, TO), ReportType.TASK_NAME);
+        assertEquals(toString(expected), toString(TaskDao.getSummary(null, TO, ReportType.TASK_NAME)));
+    }
+
+    @Test
+    void tasksEndingAfterToAreNotCounted() {
+        List<TaskSummary> summaries = TaskDao.getSummary(FIRST_DAY, TO, ReportType.TASK_NAME);
+        assertFalse(toString(summaries).contains("midnight"));
+        assertFalse(toString(summaries).contains("long"));
+    }
+
+    private static void assertSummary(ReportType reportType, LocalDateTime to) {
+        List<TaskSummary> expected = summarize(TaskDao.getTaskFromRange(FIRST_DAY, to), reportType);
+        assertEquals(toString(expected), toString(TaskDao.getSummary(FIRST_DAY, to, reportType)));
+    }
+
+    private static List<TaskSummary> summarize(List<Task> tasks, ReportType reportType) {
+        Map<String, long[]> totals = new TreeMap<>();
+        for (Task task : tasks) {
+            String group = reportType == ReportType.TASK_NAME
+                    ? task.getTaskName()
+                    : task.getStartTime().format(DAY_FORMAT);
+            long[] total = totals.computeIfAbsent(group, key -> new long[2]);
+            total[0] += task.getDuration();
+            total[1]++;
+        }
+        List<TaskSummary> summaries = new ArrayList<>();
+        totals.forEach((group, total) -> summaries.add(new TaskSummary(reportType, group, total[0], total[1])));
+        return summaries;
+    }
+
+    private static String toString(List<TaskSummary> summaries) {
+        StringBuilder text = new StringBuilder();
+        for (TaskSummary summary : summaries) {
+            text.append(summary).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static Task task(String name, LocalDateTime start, LocalDateTime end) {
+        Task task = new Task(name);
+        task.setStartTime(start);
+        task.setEndTime(end);
+        task.setDuration(Duration.between(start, end).toMillis());
+        return task;
+    }
+
+}